@@ -0,0 +1,149 @@
+package com.ads.apiseng;
+
+import com.ads.apiseng.util.StreamingXmlJsonConverter;
+import com.ads.apiseng.util.XmlLimitExceededException;
+import com.ads.apiseng.util.XmlLimits;
+import com.ads.apiseng.util.XmlProjection;
+import com.fasterxml.aalto.AsyncByteArrayFeeder;
+import com.fasterxml.aalto.AsyncXMLInputFactory;
+import com.fasterxml.aalto.AsyncXMLStreamReader;
+import com.fasterxml.aalto.stax.InputFactoryImpl;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletResponse;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import java.io.IOException;
+
+/**
+ * Non-blocking XML→JSON conversion for {@code /api/transform/async}.
+ *
+ * Request bytes are read through a Servlet 3.1 ReadListener as they arrive and pushed into an
+ * Aalto feeder parser; every complete token is handed to a {@link StreamingXmlJsonConverter.Session}
+ * and the JSON written so far is passed on after each chunk. Between chunks no container thread is
+ * held, so slow uploads don't pin Tomcat workers. Aalto has no parser limits of its own, so the
+ * {@link XmlLimits} are checked per chunk and per event and the upload is abandoned at the first breach.
+ */
+public class AsyncXmlToJsonListener implements ReadListener {
+
+    private static final AsyncXMLInputFactory INPUT_FACTORY = new InputFactoryImpl();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    private final AsyncContext asyncContext;
+    private final ServletInputStream input;
+    private final HttpServletResponse response;
+    private final JsonFactory jsonFactory;
+    private final AsyncXMLStreamReader<AsyncByteArrayFeeder> parser;
+    private final JsonGenerator generator;
+    private final StreamingXmlJsonConverter.Session session;
+    private final XmlLimits.Tracker limits;
+    private final byte[] chunk = new byte[8192];
+    private boolean finished;
+
+    public AsyncXmlToJsonListener(AsyncContext asyncContext, ServletInputStream input, HttpServletResponse response,
+                                  StreamingXmlJsonConverter converter, JsonFactory jsonFactory,
+                                  XmlProjection projection, XmlLimits xmlLimits) throws IOException {
+        this.asyncContext = asyncContext;
+        this.input = input;
+        this.response = response;
+        this.jsonFactory = jsonFactory;
+        this.parser = INPUT_FACTORY.createAsyncForByteArray();
+        this.generator = jsonFactory.createGenerator(response.getOutputStream(), JsonEncoding.UTF8);
+        if (!jsonFactory.canHandleBinaryNatively()) {
+            this.generator.useDefaultPrettyPrinter();
+        }
+        // Hand output to the container buffer per chunk but let it decide when to commit,
+        // so errors in small documents can still be reported with a proper status
+        this.generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        this.session = converter.newSession(generator, projection);
+        this.limits = xmlLimits.tracker();
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+        try {
+            int read;
+            while (!finished && input.isReady() && (read = input.read(chunk)) != -1) {
+                limits.onInput(read);
+                // The feeder reads from the array in place, so drain it before the next read reuses it
+                parser.getInputFeeder().feedInput(chunk, 0, read);
+                drain();
+                generator.flush();
+            }
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onAllDataRead() throws IOException {
+        if (finished) {
+            return;
+        }
+        try {
+            parser.getInputFeeder().endOfInput();
+            drain();
+            if (!finished) {
+                throw new IllegalStateException("Incomplete XML document: root element was not closed");
+            }
+        } catch (Exception e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        fail(t);
+    }
+
+    private void drain() throws Exception {
+        int event;
+        while (!finished && (event = parser.next()) != AsyncXMLStreamReader.EVENT_INCOMPLETE) {
+            limits.onEvent(parser, event);
+            if (session.accept(parser, event) || event == XMLStreamConstants.END_DOCUMENT) {
+                complete();
+            }
+        }
+    }
+
+    private void complete() throws Exception {
+        finished = true;
+        generator.close();
+        parser.close();
+        asyncContext.complete();
+    }
+
+    private void fail(Throwable error) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        System.err.println("❌ Async XML→JSON conversion failed: " + error.getMessage());
+        try {
+            if (!response.isCommitted()) {
+                response.resetBuffer();
+                XmlLimitExceededException violation = XmlLimits.findViolation(error);
+                response.setStatus(violation != null ? violation.getStatus() : HttpServletResponse.SC_BAD_REQUEST);
+                try (JsonGenerator errorGenerator = jsonFactory.createGenerator(response.getOutputStream(), JsonEncoding.UTF8)) {
+                    errorGenerator.writeStartObject();
+                    errorGenerator.writeStringField("error", String.valueOf(error.getMessage()));
+                    errorGenerator.writeEndObject();
+                }
+            }
+            parser.close();
+        } catch (Exception ignored) {
+            // The client is gone or the response is already committed; nothing more to report
+        } finally {
+            asyncContext.complete();
+        }
+    }
+}
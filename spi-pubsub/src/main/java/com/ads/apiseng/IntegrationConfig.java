@@ -1,21 +1,46 @@
 package com.ads.apiseng;
 
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.service.AdaptiveConcurrencyLimiter;
+import com.ads.apiseng.service.JsonEnvelopeWriter;
+import com.ads.apiseng.service.ParallelRecordTransformer;
+import com.ads.apiseng.service.PubSubService;
+import com.ads.apiseng.service.RecipientListRouter;
+import com.ads.apiseng.service.RoutingClassifier;
+import com.ads.apiseng.service.RoutingTable;
+import com.ads.apiseng.service.TypeBulkheads;
+import com.ads.apiseng.service.XmlRecordSplitter;
 import com.ads.apiseng.service.XmlTransformationService;
-import com.ads.apiseng.util.XmlTypeDetector;
+import com.ads.apiseng.util.XmlLimits;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.codehaus.stax2.XMLStreamReader2;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.integration.annotation.Router;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.annotation.Transformer;
+import org.springframework.integration.channel.AbstractMessageChannel;
 import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.integration.channel.PartitionedChannel;
 import org.springframework.integration.config.EnableIntegration;
 import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandlingException;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.Message;
+import org.springframework.messaging.support.ErrorMessage;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableIntegration
@@ -24,11 +49,46 @@ public class IntegrationConfig {
     @Autowired(required = false)
     private XmlTransformationService transformationService;
 
+    @Autowired
+    private JsonEnvelopeWriter envelopeWriter;
+
+    @Autowired
+    private XmlRecordSplitter recordSplitter;
+
+    @Autowired
+    private ParallelRecordTransformer parallelRecordTransformer;
+
+    @Autowired
+    private RecipientListRouter recipientListRouter;
+
+    @Autowired
+    private RoutingTable routingTable;
+
+    @Autowired
+    private RoutingClassifier routingClassifier;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter admissionLimiter;
+
+    @Autowired
+    private TypeBulkheads typeBulkheads;
+
+    @Autowired(required = false)
+    private SpiAppProperties spiAppProperties;
+
+    @Autowired(required = false)
+    private PubSubService pubSubService;
+
+    @Autowired
+    private XmlLimits xmlLimits;
+
     // =================== SHARED MAPPERS ===================
     
     @Bean
     public XmlMapper xmlMapper() {
-        return new XmlMapper();
+        XmlMapper xmlMapper = new XmlMapper();
+        xmlLimits.apply(xmlMapper.getFactory().getXMLInputFactory());
+        return xmlMapper;
     }
 
     @Bean
@@ -65,37 +125,60 @@ public class IntegrationConfig {
 
     // =================== CONTENT-BASED ROUTER CHANNELS ===================
     
+    /**
+     * Partitioned lanes, the shared executor or the caller's thread, per
+     * {@code spi-app.channels.content-router}. Messages are admitted first, so refused ones fail
+     * fast, then classified once for the partition function and the router.
+     */
     @Bean
-    public MessageChannel contentRouterInputChannel() {
-        DirectChannel channel = new DirectChannel();
+    public MessageChannel contentRouterInputChannel(@Qualifier("taskExecutor") AsyncTaskExecutor taskExecutor) {
+        AbstractMessageChannel channel;
+        var contentRouter = spiAppProperties.getChannels().getContentRouter();
+        if (contentRouter.isPartitioned()) {
+            // Same key, same single-threaded lane: per-key order is kept while the lanes run in parallel
+            PartitionedChannel partitionedChannel = new PartitionedChannel(contentRouter.getLanes(), routingClassifier::partitionKey);
+            partitionedChannel.setThreadFactory(new CustomizableThreadFactory("spi-lane-"));
+            System.out.println("🛣️ Content router partitioned over " + contentRouter.getLanes() + " lanes, keys "
+                + (contentRouter.getKeyPaths() != null ? contentRouter.getKeyPaths().keySet() : "[]"));
+            channel = partitionedChannel;
+        } else if (contentRouter.isParallelProcessing()) {
+            channel = new ExecutorChannel(taskExecutor);
+        } else {
+            channel = new DirectChannel();
+        }
+        channel.addInterceptor(admissionLimiter);
+        channel.addInterceptor(routingClassifier);
         channel.addInterceptor(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(Message<?> message, MessageChannel channel) {
-                System.out.println("📨 Content Router Input Channel - Received: " + message.getPayload());
+                if (spiAppProperties.getProcessing().isEnableTracing()) {
+                    System.out.println("📨 Content Router Input Channel - Received: " + message.getHeaders().get(RoutingClassifier.HEADER));
+                }
                 return message;
             }
         });
         return channel;
     }
 
+    // Executor channels on the type's bulkhead where one is configured, direct otherwise
     @Bean
     public MessageChannel customerProcessingChannel() {
-        return new DirectChannel();
+        return typeBulkheads.processingChannel("customer");
     }
 
     @Bean
     public MessageChannel orderProcessingChannel() {
-        return new DirectChannel();
+        return typeBulkheads.processingChannel("order");
     }
 
     @Bean
     public MessageChannel productProcessingChannel() {
-        return new DirectChannel();
+        return typeBulkheads.processingChannel("product");
     }
 
     @Bean
     public MessageChannel genericProcessingChannel() {
-        return new DirectChannel();
+        return typeBulkheads.processingChannel("generic");
     }
 
     @Bean
@@ -120,25 +203,123 @@ public class IntegrationConfig {
 
     // =================== CONTENT-BASED ROUTER ===================
     
+    /**
+     * The one router on contentRouterInputChannel: composite documents go to the recipient list,
+     * batches to the record splitter, everything else to its type's channel in the RoutingTable.
+     * The decision was made when the message was sent to the channel; this only reads it.
+     */
     @Router(inputChannel = "contentRouterInputChannel")
-    public String routeXmlByContent(String xmlPayload) {
-        String xmlType = XmlTypeDetector.detectType(xmlPayload);
-        System.out.println("🔀 CONTENT-BASED ROUTER: Detected Type = " + xmlType);
+    public String routeXmlByContent(Message<String> message) {
+        return routingClassifier.decisionFor(message).getTarget();
+    }
+
+    // =================== RECORD SPLITTER ===================
+    
+    @Bean
+    public MessageChannel recordSplitterChannel() {
+        return new DirectChannel();
+    }
+
+    @ServiceActivator(inputChannel = "recordSplitterChannel")
+    public void splitRecords(Message<String> message) throws Exception {
+        // Type and route as the router's decision resolved them
+        RoutingTable.Route route = routingClassifier.decisionFor(message).getRoute();
+        String xmlType = route.getType();
+        String recordElement = route.getRecordElement();
+        String channelName = route.getChannel();
         
-        switch (xmlType) {
-            case "CUSTOMER":
-                System.out.println("   → Routing to CUSTOMER processing channel");
-                return "customerProcessingChannel";
-            case "ORDER":
-                System.out.println("   → Routing to ORDER processing channel");
-                return "orderProcessingChannel";
-            case "PRODUCT":
-                System.out.println("   → Routing to PRODUCT processing channel");
-                return "productProcessingChannel";
-            default:
-                System.out.println("   → Routing to GENERIC processing channel (type: " + xmlType + ")");
-                return "genericProcessingChannel";
+        if (parallelRecordTransformer.isEnabled()) {
+            ThreadPoolTaskExecutor bulkhead = typeBulkheads.executorFor(xmlType);
+            if (bulkhead == null) {
+                transformInParallel(message, route);
+                return;
+            }
+            // The batch takes a slot on the type's bulkhead like any of its documents; a full bulkhead rejects it here
+            bulkhead.execute(() -> {
+                try {
+                    transformInParallel(message, route);
+                } catch (Exception e) {
+                    messagingTemplate().getDestinationResolver().resolveDestination(spiAppProperties.getErrorHandling().getErrorChannel())
+                        .send(new ErrorMessage(new MessageHandlingException(message, "Parallel record transformation failed", e)));
+                }
+            });
+            return;
+        }
+        
+        MessageChannel processingChannel = messagingTemplate().getDestinationResolver().resolveDestination(channelName);
+        XMLStreamReader2 batch;
+        try {
+            batch = recordSplitter.openBatch(message.getPayload());
+        } catch (XMLStreamException e) {
+            // No root element to split under: the transformer reports the document as it is
+            routeAsSingleDocument(message, channelName, xmlType);
+            return;
+        }
+        // Each record goes through the type's normal processing channel as its own message
+        int records = recordSplitter.split(batch, recordElement,
+            (index, recordXml) -> processingChannel.send(MessageBuilder.withPayload(recordXml)
+                .copyHeaders(message.getHeaders())
+                .setCorrelationId(message.getHeaders().getId())
+                .setSequenceNumber(index + 1)
+                .build()));
+        if (records == 0) {
+            routeAsSingleDocument(message, channelName, xmlType);
+            return;
+        }
+        System.out.println("✂️ RECORD SPLITTER: Emitted " + records + " " + recordElement + " records for type " + xmlType.toUpperCase());
+    }
+
+    // Records are transformed in parallel here and their results sent to the output channel in document order
+    private void transformInParallel(Message<String> message, RoutingTable.Route route) throws Exception {
+        String xmlType = route.getType();
+        String recordElement = route.getRecordElement();
+        List<String> results = parallelRecordTransformer.transformAll(message.getPayload(), xmlType, recordElement);
+        if (results.isEmpty()) {
+            routeAsSingleDocument(message, route.getChannel(), xmlType);
+            return;
+        }
+        MessageChannel outputChannel = messagingTemplate().getDestinationResolver().resolveDestination(route.getOutputChannel());
+        for (int i = 0; i < results.size(); i++) {
+            outputChannel.send(MessageBuilder.withPayload(results.get(i))
+                .copyHeaders(message.getHeaders())
+                .setCorrelationId(message.getHeaders().getId())
+                .setSequenceNumber(i + 1)
+                .setSequenceSize(results.size())
+                .build());
+        }
+        System.out.println("✂️ RECORD SPLITTER: Transformed " + results.size() + " " + recordElement + " records in parallel for type " + xmlType.toUpperCase());
+    }
+
+    // A batch that holds no records is processed as the one document it is rather than dropped
+    private void routeAsSingleDocument(Message<String> message, String channelName, String xmlType) {
+        System.out.println("✂️ RECORD SPLITTER: No " + xmlType.toUpperCase() + " records found, processing as a single document");
+        messagingTemplate().getDestinationResolver().resolveDestination(channelName).send(message);
+    }
+
+    // =================== RECIPIENT LIST ===================
+    
+    @Bean
+    public MessageChannel recipientListChannel() {
+        return new DirectChannel();
+    }
+
+    @ServiceActivator(inputChannel = "recipientListChannel")
+    public void routeToRecipients(Message<String> message) throws Exception {
+        // Parsed once; each recipient's envelope goes straight to its type's output channel
+        Map<String, String> results = recipientListRouter.route(message.getPayload());
+        int sequence = 0;
+        for (Map.Entry<String, String> result : results.entrySet()) {
+            MessageChannel outputChannel = messagingTemplate().getDestinationResolver()
+                .resolveDestination(routingTable.route(result.getKey()).getOutputChannel());
+            outputChannel.send(MessageBuilder.withPayload(result.getValue())
+                .copyHeaders(message.getHeaders())
+                .setHeader("xml-type", result.getKey())
+                .setCorrelationId(message.getHeaders().getId())
+                .setSequenceNumber(++sequence)
+                .setSequenceSize(results.size())
+                .build());
         }
+        System.out.println("📬 RECIPIENT LIST: Sent " + results.keySet() + " from one composite document");
     }
 
     // =================== CONTENT-BASED TRANSFORMERS ===================
@@ -190,6 +371,7 @@ public class IntegrationConfig {
     public void handleCustomerOutput(String jsonResult) {
         System.out.println("🎯 === CUSTOMER PROCESSING COMPLETE ===");
         System.out.println("📄 Result: " + jsonResult);
+        publish(jsonResult, "customer");
         System.out.println("==========================================");
     }
 
@@ -197,6 +379,7 @@ public class IntegrationConfig {
     public void handleOrderOutput(String jsonResult) {
         System.out.println("🎯 === ORDER PROCESSING COMPLETE ===");
         System.out.println("📄 Result: " + jsonResult);
+        publish(jsonResult, "order");
         System.out.println("====================================");
     }
 
@@ -204,6 +387,7 @@ public class IntegrationConfig {
     public void handleProductOutput(String jsonResult) {
         System.out.println("🎯 === PRODUCT PROCESSING COMPLETE ===");
         System.out.println("📄 Result: " + jsonResult);
+        publish(jsonResult, "product");
         System.out.println("======================================");
     }
 
@@ -211,26 +395,21 @@ public class IntegrationConfig {
     public void handleGenericOutput(String jsonResult) {
         System.out.println("🎯 === GENERIC PROCESSING COMPLETE ===");
         System.out.println("📄 Result: " + jsonResult);
+        publish(jsonResult, "generic");
         System.out.println("======================================");
     }
 
     // =================== HELPER METHOD ===================
     
-    private String transformWithMappers(String xmlPayload, String type) {
-        try {
-            // Use your existing mappers for fallback transformation
-            var jsonNode = xmlMapper().readTree(xmlPayload);
-            String jsonData = objectMapper().writeValueAsString(jsonNode);
-            
-            return String.format(
-                "{ \"type\": \"%s\", \"timestamp\": \"%d\", \"processor\": \"FallbackTransformer\", \"status\": \"success\", \"data\": %s }", 
-                type, System.currentTimeMillis(), jsonData
-            );
-        } catch (Exception e) {
-            return String.format(
-                "{ \"type\": \"%s\", \"timestamp\": \"%d\", \"processor\": \"FallbackTransformer\", \"status\": \"error\", \"error\": \"%s\" }", 
-                type, System.currentTimeMillis(), e.getMessage()
-            );
+    private void publish(String jsonResult, String type) {
+        if (pubSubService != null) {
+            pubSubService.publishResult(type, jsonResult);
         }
     }
+    
+    private String transformWithMappers(String xmlPayload, String type) {
+        // Use your existing mappers for fallback transformation, written straight into the envelope
+        return envelopeWriter.write(envelopeWriter.template(type, "FallbackTransformer"),
+            generator -> objectMapper().writeTree(generator, xmlMapper().readTree(xmlPayload)));
+    }
 }
\ No newline at end of file
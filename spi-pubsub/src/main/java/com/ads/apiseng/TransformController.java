@@ -1,11 +1,31 @@
  
 package com.ads.apiseng;
 
+import com.ads.apiseng.service.OutputFormat;
+import com.ads.apiseng.service.ParallelRecordTransformer;
+import com.ads.apiseng.service.XmlRecordSplitter;
+import com.ads.apiseng.util.StreamingXmlJsonConverter;
+import com.ads.apiseng.util.XmlLimitExceededException;
+import com.ads.apiseng.util.XmlLimits;
+import com.ads.apiseng.util.XmlProjection;
+import com.ads.apiseng.util.XmlTypeDetector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.codehaus.stax2.XMLStreamReader2;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api")
 public class TransformController {
@@ -13,17 +33,151 @@ public class TransformController {
     @Autowired
     private XmlToJsonGateway xmlToJsonGateway;
 
+    @Autowired
+    private XmlMapper xmlMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private XmlRecordSplitter recordSplitter;
+
+    @Autowired
+    private XmlTypeDetector xmlTypeDetector;
+
+    @Autowired
+    private ParallelRecordTransformer parallelRecordTransformer;
+
+    @Autowired
+    private XmlLimits xmlLimits;
+
+    private StreamingXmlJsonConverter streamingConverter;
+
+    @PostConstruct
+    public void init() {
+        streamingConverter = new StreamingXmlJsonConverter(xmlMapper, objectMapper);
+    }
+
     @PostMapping(value = "/transform", 
                  consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE},
-                 produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<String> transformXmlToJson(@RequestBody String xmlData) {
+                 produces = {MediaType.APPLICATION_JSON_VALUE, "application/cbor", "application/x-jackson-smile"})
+    public ResponseEntity<byte[]> transformXmlToJson(@RequestBody byte[] xmlData,
+                                                     @RequestParam(value = "fields", required = false) String fields,
+                                                     @RequestHeader(value = "X-Projection", required = false) String projection,
+                                                     @RequestHeader(value = "Accept", required = false) String accept,
+                                                     @RequestHeader(value = "Content-Encoding", required = false) String contentEncoding) {
+        try {
+            // ?fields=a,b/c or X-Projection: a,b/c keeps only those paths; subtrees outside them are skipped
+            OutputFormat format = OutputFormat.fromAccept(accept);
+            // Compressed bodies are passed on as is and inflated by the parser (see CompressionFilter)
+            byte[] result = xmlToJsonGateway.convertXmlToJson(xmlData, fields != null ? fields : projection, format.name(), contentEncoding);
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType(format.getMediaType())).body(result);
+        } catch (Exception e) {
+            // Parser limits abort the conversion early and answer 413 (size) or 422 (structure)
+            XmlLimitExceededException violation = XmlLimits.findViolation(e);
+            if (violation != null) {
+                return limitExceeded(violation);
+            }
+            return ResponseEntity.badRequest().contentType(MediaType.APPLICATION_JSON).body(errorJson(e));
+        }
+    }
+
+    /**
+     * Bodies cut off by the request size limit while they are still being read, before a handler runs.
+     */
+    @ExceptionHandler(XmlLimitExceededException.class)
+    public ResponseEntity<byte[]> limitExceeded(XmlLimitExceededException e) {
+        return ResponseEntity.status(e.getStatus()).contentType(MediaType.APPLICATION_JSON).body(errorJson(e));
+    }
+
+    // {"error": message}, escaped by Jackson; exceptions without a message report their class
+    private byte[] errorJson(Exception e) {
+        String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        try {
+            return objectMapper.writeValueAsBytes(Map.of("error", message));
+        } catch (IOException writeFailure) {
+            return "{\"error\":\"Transformation failed\"}".getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Non-blocking variant of /transform: the body is parsed chunk by chunk as it arrives and the
+     * JSON is streamed back, without holding a request thread while the client is uploading.
+     */
+    @PostMapping(value = "/transform/async",
+                 consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE},
+                 produces = {MediaType.APPLICATION_JSON_VALUE, "application/cbor", "application/x-jackson-smile"})
+    public void transformXmlToJsonAsync(HttpServletRequest request, HttpServletResponse response,
+                                        @RequestParam(value = "fields", required = false) String fields,
+                                        @RequestHeader(value = "X-Projection", required = false) String projection,
+                                        @RequestHeader(value = "Accept", required = false) String accept) throws IOException {
+        XmlProjection xmlProjection;
+        try {
+            xmlProjection = XmlProjection.parse(fields != null ? fields : projection);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        OutputFormat format = OutputFormat.fromAccept(accept);
+        AsyncContext asyncContext = request.startAsync();
+        response.setContentType(format.getMediaType());
+        request.getInputStream().setReadListener(new AsyncXmlToJsonListener(asyncContext, request.getInputStream(), response,
+            streamingConverter, format.isBinary() ? format.getFactory() : objectMapper.getFactory(), xmlProjection, xmlLimits));
+    }
+
+    /**
+     * Splits a batch document into its configured record elements and streams one transformed
+     * result per record, as NDJSON by default or as a JSON array when only application/json is
+     * accepted. The type comes from the {@code type} parameter or is detected from the root element.
+     * With {@code processing.parallel-records} enabled the records are transformed in parallel and
+     * still written in document order.
+     */
+    @PostMapping(value = "/transform/records",
+                 consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE},
+                 produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public void transformRecords(HttpServletRequest request, HttpServletResponse response,
+                                 @RequestParam(required = false) String type,
+                                 @RequestHeader(value = "Accept", required = false) String accept) throws IOException {
         try {
-            String jsonResult = xmlToJsonGateway.convertXmlToJson(xmlData);
-            return ResponseEntity.ok(jsonResult);
+            XMLStreamReader2 reader = recordSplitter.openBatch(request.getInputStream());
+            String xmlType = type != null ? type.toLowerCase()
+                : xmlTypeDetector.detectRoot(reader.getLocalName(), reader.getNamespaceURI()).toLowerCase();
+            String recordElement = recordSplitter.recordElementFor(xmlType);
+            if (recordElement == null) {
+                reader.close();
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "No record-element configured for type: " + xmlType);
+                return;
+            }
+
+            boolean jsonArray = accept != null && accept.contains(MediaType.APPLICATION_JSON_VALUE)
+                && !accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
+            response.setContentType(jsonArray ? MediaType.APPLICATION_JSON_VALUE : MediaType.APPLICATION_NDJSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            OutputStream out = response.getOutputStream();
+            if (jsonArray) {
+                out.write('[');
+            }
+            int records = parallelRecordTransformer.transformStreaming(reader, xmlType, recordElement, (index, recordJson) -> {
+                if (jsonArray && index > 0) {
+                    out.write(',');
+                }
+                out.write(recordJson.getBytes(StandardCharsets.UTF_8));
+                if (!jsonArray) {
+                    out.write('\n');
+                }
+            });
+            if (jsonArray) {
+                out.write(']');
+            }
+            System.out.println("✂️ Streamed " + records + " " + recordElement + " records for type " + xmlType.toUpperCase());
         } catch (Exception e) {
-            String errorJson = String.format("{\"error\":\"%s\"}", 
-                e.getMessage().replace("\"", "\\\""));
-            return ResponseEntity.badRequest().body(errorJson);
+            System.err.println("❌ Record transformation failed: " + e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                XmlLimitExceededException violation = XmlLimits.findViolation(e);
+                response.sendError(violation != null ? violation.getStatus() : HttpServletResponse.SC_BAD_REQUEST,
+                    violation != null ? violation.getMessage() : e.getMessage());
+            }
         }
     }
 
@@ -2,10 +2,22 @@ package com.ads.apiseng;
 
 import org.springframework.integration.annotation.Gateway;
 import org.springframework.integration.annotation.MessagingGateway;
+import org.springframework.messaging.handler.annotation.Header;
 
 @MessagingGateway
 public interface XmlToJsonGateway {
     
     @Gateway(requestChannel = "xmlInputChannel")
     String convertXmlToJson(String xmlData);
+
+    @Gateway(requestChannel = "xmlInputChannel")
+    byte[] convertXmlToJson(byte[] xmlData);
+
+    @Gateway(requestChannel = "xmlInputChannel")
+    byte[] convertXmlToJson(byte[] xmlData, @Header(name = "projection", required = false) String projection);
+
+    @Gateway(requestChannel = "xmlInputChannel")
+    byte[] convertXmlToJson(byte[] xmlData, @Header(name = "projection", required = false) String projection,
+                            @Header(name = "format", required = false) String format,
+                            @Header(name = "contentEncoding", required = false) String contentEncoding);
 }
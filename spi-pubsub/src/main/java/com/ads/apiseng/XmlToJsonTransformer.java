@@ -1,18 +1,30 @@
  
 package com.ads.apiseng;
 
+import com.ads.apiseng.service.OutputFormat;
+import com.ads.apiseng.util.ContentCoding;
+import com.ads.apiseng.util.StreamingXmlJsonConverter;
+import com.ads.apiseng.util.XmlProjection;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.springframework.messaging.handler.annotation.Header;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 
 public class XmlToJsonTransformer {
 
     private final XmlMapper xmlMapper;
     private final ObjectMapper objectMapper;
+    private final StreamingXmlJsonConverter streamingConverter;
 
     public XmlToJsonTransformer(XmlMapper xmlMapper, ObjectMapper objectMapper) {
         this.xmlMapper = xmlMapper;
         this.objectMapper = objectMapper;
+        this.streamingConverter = new StreamingXmlJsonConverter(xmlMapper, objectMapper);
     }
 
     public String transform(String xmlData) {
@@ -26,4 +38,50 @@ public class XmlToJsonTransformer {
             throw new RuntimeException("Error converting XML to JSON: " + e.getMessage(), e);
         }
     }
-}
+
+    /**
+     * Byte path used by the HTTP endpoint: the XML bytes are only decoded by the StAX parser and
+     * the JSON is encoded as UTF-8 straight from the generator, with no intermediate Strings.
+     * An optional {@code projection} header limits the output to the listed paths, and an optional
+     * {@code format} header (an {@link OutputFormat} name) selects CBOR or Smile instead of JSON.
+     * Bodies sent with a {@code contentEncoding} (gzip, zstd) stay compressed in the message and
+     * are inflated while they are parsed.
+     *
+     * The result is buffered rather than streamed into the response: a document that needs the
+     * tree fallback discards what the streaming pass wrote, and a parse error must still answer
+     * 400/413/422 instead of a truncated 200.
+     */
+    public byte[] transform(byte[] xmlData, @Header(name = "projection", required = false) String projectionSpec,
+                            @Header(name = "format", required = false) String formatName,
+                            @Header(name = "contentEncoding", required = false) String contentEncoding) {
+        try {
+            XmlProjection projection = XmlProjection.parse(projectionSpec);
+            OutputFormat format = OutputFormat.fromName(formatName);
+            ContentCoding coding = ContentCoding.fromContentEncoding(contentEncoding);
+            if (coding == null) {
+                throw new IllegalArgumentException("Unsupported Content-Encoding: " + contentEncoding);
+            }
+            ByteArrayOutputStream jsonOutput = new ByteArrayOutputStream(Math.max(32, projection != null ? 256 : xmlData.length));
+            try (JsonGenerator generator = createGenerator(format, jsonOutput)) {
+                streamingConverter.convert(coding.decode(new ByteArrayInputStream(xmlData)), generator, projection);
+            } catch (StreamingXmlJsonConverter.NonConsecutiveRepeatException e) {
+                jsonOutput.reset();
+                JsonNode jsonNode = xmlMapper.readTree(coding.decode(new ByteArrayInputStream(xmlData)));
+                try (JsonGenerator generator = createGenerator(format, jsonOutput)) {
+                    objectMapper.writeTree(generator, projection != null ? projection.apply(jsonNode) : jsonNode);
+                }
+            }
+            return jsonOutput.toByteArray();
+        } catch (Exception e) {
+            throw new RuntimeException("Error converting XML to JSON: " + e.getMessage(), e);
+        }
+    }
+
+    // JSON keeps the pretty-printed output of this endpoint; binary formats are written compact
+    private JsonGenerator createGenerator(OutputFormat format, ByteArrayOutputStream output) throws java.io.IOException {
+        if (format.isBinary()) {
+            return format.getFactory().createGenerator(output);
+        }
+        return objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8).useDefaultPrettyPrinter();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,282 @@
+package com.ads.apiseng.config;
+
+import com.ads.apiseng.util.ContentCoding;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.Enumeration;
+
+/**
+ * Content-Encoding (gzip, zstd) for the {@code /api/transform} and {@code /api/router} endpoints.
+ *
+ * Compressed request bodies are inflated as a stream while the parser reads them, except on
+ * {@code /api/transform}, which takes the compressed bytes as is and inflates them inside the
+ * transformer, and {@code /api/transform/async}, whose non-blocking reads can't go through a
+ * blocking inflater. Responses are compressed as they are written when Accept-Encoding allows it.
+ */
+@Component
+public class CompressionFilter extends OncePerRequestFilter {
+
+    public static final String TRANSFORM_PATH = "/api/transform";
+    public static final String ASYNC_PATH = "/api/transform/async";
+    public static final String ROUTER_PATH = "/api/router";
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !isUnder(path, TRANSFORM_PATH) && !isUnder(path, ROUTER_PATH);
+    }
+
+    // The path itself or one below it, so /api/transformer is not taken for /api/transform
+    static boolean isUnder(String path, String prefix) {
+        return path.startsWith(prefix) && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/');
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return true;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI();
+        ContentCoding requestCoding = ContentCoding.fromContentEncoding(request.getHeader(HttpHeaders.CONTENT_ENCODING));
+        if (requestCoding == null || (requestCoding != ContentCoding.IDENTITY && path.equals(ASYNC_PATH))) {
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                "Unsupported Content-Encoding: " + request.getHeader(HttpHeaders.CONTENT_ENCODING));
+            return;
+        }
+        if (requestCoding != ContentCoding.IDENTITY && !path.equals(TRANSFORM_PATH)) {
+            request = new DecodingRequest(request, requestCoding);
+        }
+
+        ContentCoding responseCoding = ContentCoding.fromAcceptEncoding(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (responseCoding == ContentCoding.IDENTITY) {
+            chain.doFilter(request, response);
+            return;
+        }
+        EncodingResponse encodingResponse = new EncodingResponse(response, responseCoding);
+        chain.doFilter(request, encodingResponse);
+        // Async handlers finish the stream themselves by closing it before completing
+        if (!request.isAsyncStarted()) {
+            encodingResponse.finish();
+        }
+    }
+
+    private static final class DecodingRequest extends HttpServletRequestWrapper {
+
+        private final ContentCoding coding;
+        private ServletInputStream decoded;
+
+        DecodingRequest(HttpServletRequest request, ContentCoding coding) {
+            super(request);
+            this.coding = coding;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (decoded == null) {
+                InputStream input = coding.decode(super.getInputStream());
+                decoded = new ServletInputStream() {
+                    private boolean finished;
+
+                    @Override
+                    public int read() throws IOException {
+                        int value = input.read();
+                        finished = value < 0;
+                        return value;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int count = input.read(buffer, offset, length);
+                        finished = count < 0;
+                        return count;
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return finished;
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener readListener) {
+                        throw new IllegalStateException("Non-blocking reads are not supported for " + coding.getToken() + " bodies");
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        input.close();
+                    }
+                };
+            }
+            return decoded;
+        }
+
+        // The inflated length is unknown, and the body is no longer encoded once it is read
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isEncodingHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isEncodingHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        private static boolean isEncodingHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static final class EncodingResponse extends HttpServletResponseWrapper {
+
+        private final ContentCoding coding;
+        private OutputStream encoder;
+        private ServletOutputStream encoded;
+        private PrintWriter writer;
+
+        EncodingResponse(HttpServletResponse response, ContentCoding coding) {
+            super(response);
+            this.coding = coding;
+        }
+
+        // The header is only set once a body is actually written, so sendError pages stay plain
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (encoded == null) {
+                ServletOutputStream target = super.getOutputStream();
+                setHeader(HttpHeaders.CONTENT_ENCODING, coding.getToken());
+                addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                encoder = coding.encode(target);
+                encoded = new ServletOutputStream() {
+                    @Override
+                    public void write(int value) throws IOException {
+                        encoder.write(value);
+                    }
+
+                    @Override
+                    public void write(byte[] buffer, int offset, int length) throws IOException {
+                        encoder.write(buffer, offset, length);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        encoder.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        finish();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return target.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        target.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return encoded;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void setContentLength(int length) {
+            // The compressed length differs; the response is sent chunked
+        }
+
+        @Override
+        public void setContentLengthLong(long length) {
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (encoder != null) {
+                encoder.flush();
+            }
+            super.flushBuffer();
+        }
+
+        // A reset discards what was written, including the compression stream's header bytes
+        @Override
+        public void reset() {
+            super.reset();
+            encoder = null;
+            encoded = null;
+            writer = null;
+        }
+
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (encoder != null) {
+                OutputStream finishing = encoder;
+                encoder = null;
+                finishing.close();
+            }
+        }
+    }
+}
@@ -2,9 +2,9 @@ package com.ads.apiseng.config;
 
 import com.ads.apiseng.XmlToJsonTransformer;
 import com.ads.apiseng.config.SpiAppProperties;
-import com.ads.apiseng.service.PubSubService;
+import com.ads.apiseng.service.JsonEnvelopeWriter;
+import com.ads.apiseng.service.TypeBulkheads;
 import com.ads.apiseng.service.XmlTransformationService;
-import com.ads.apiseng.util.XmlTypeDetector;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,7 +12,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.integration.annotation.Router;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.annotation.Transformer;
 import org.springframework.integration.channel.DirectChannel;
@@ -22,7 +22,6 @@ import org.springframework.integration.core.MessagingTemplate;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.Message;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -38,9 +37,6 @@ public class EnhancedIntegrationConfig {
     @Autowired(required = false)
     private XmlTransformationService transformationService;
 
-    @Autowired(required = false)
-    private PubSubService pubSubService;
-
     private final Map<String, MessageChannel> dynamicChannels = new ConcurrentHashMap<>();
 
     // =================== SHARED COMPONENTS ===================
@@ -54,15 +50,16 @@ public class EnhancedIntegrationConfig {
     @Autowired
     private MessagingTemplate messagingTemplate;
 
+    @Autowired
+    private JsonEnvelopeWriter envelopeWriter;
+
+    @Autowired
+    private TypeBulkheads typeBulkheads;
+
     @Bean
-    public ThreadPoolTaskExecutor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(spiAppProperties.getProcessing().getThreadPoolSize());
-        executor.setMaxPoolSize(spiAppProperties.getProcessing().getThreadPoolSize() * 2);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("spi-async-");
-        executor.initialize();
-        return executor;
+    public AsyncTaskExecutor taskExecutor() {
+        // Platform pool or concurrency-limited virtual threads, per processing.executor.mode
+        return ProcessingExecutors.create(spiAppProperties.getProcessing(), "spi-async-");
     }
 
     // =================== ORIGINAL XML→JSON TRANSFORMER (Conditional) ===================
@@ -85,22 +82,6 @@ public class EnhancedIntegrationConfig {
 
     // =================== CONTENT-BASED ROUTER CHANNELS (Conditional) ===================
     
-    @Bean
-    @ConditionalOnProperty(name = "spiapp.channels.content-router.enabled", havingValue = "true")
-    public MessageChannel contentRouterInputChannel() {
-        MessageChannel channel;
-        if (spiAppProperties.getChannels().getContentRouter().isParallelProcessing()) {
-            ExecutorChannel executorChannel = new ExecutorChannel(taskExecutor());
-            executorChannel.addInterceptor(createLoggingInterceptor("Content Router Input"));
-            channel = executorChannel;
-        } else {
-            DirectChannel directChannel = new DirectChannel();
-            directChannel.addInterceptor(createLoggingInterceptor("Content Router Input"));
-            channel = directChannel;
-        }
-        return channel;
-    }
-
     // Dynamic channel creation based on configuration
     @Bean
     @ConditionalOnProperty(name = "spiapp.channels.content-router.enabled", havingValue = "true")
@@ -109,10 +90,12 @@ public class EnhancedIntegrationConfig {
         
         spiAppProperties.getRouting().getXmlTypes().forEach((type, config) -> {
             if (config.isEnabled()) {
-                MessageChannel channel = new DirectChannel();
+                // An ExecutorChannel on the type's own bulkhead when it has one
+                MessageChannel channel = typeBulkheads.processingChannel(type);
                 channels.put(config.getChannel(), channel);
                 dynamicChannels.put(config.getChannel(), channel);
-                System.out.println("📡 Created processing channel: " + config.getChannel() + " for type: " + type.toUpperCase());
+                System.out.println("📡 Created processing channel: " + config.getChannel() + " for type: " + type.toUpperCase()
+                    + (channel instanceof ExecutorChannel ? " (bulkhead)" : ""));
             }
         });
         
@@ -139,30 +122,9 @@ public class EnhancedIntegrationConfig {
 
     // =================== CONFIGURABLE CONTENT-BASED ROUTER ===================
     
-    @Router(inputChannel = "contentRouterInputChannel")
-    @ConditionalOnProperty(name = "spiapp.channels.content-router.enabled", havingValue = "true")
-    public String routeXmlByContent(String xmlPayload) {
-        String xmlType = XmlTypeDetector.detectType(xmlPayload).toLowerCase();
-        System.out.println("🔀 CONFIGURABLE ROUTER: Detected Type = " + xmlType.toUpperCase());
-        
-        var xmlTypeConfig = spiAppProperties.getRouting().getXmlTypes().get(xmlType);
-        
-        if (xmlTypeConfig != null && xmlTypeConfig.isEnabled()) {
-            System.out.println("   → Routing to configured channel: " + xmlTypeConfig.getChannel());
-            return xmlTypeConfig.getChannel();
-        }
-        
-        // Fallback to generic if configured
-        var genericConfig = spiAppProperties.getRouting().getXmlTypes().get("generic");
-        if (genericConfig != null && genericConfig.isEnabled()) {
-            System.out.println("   → Routing to generic channel (fallback): " + genericConfig.getChannel());
-            return genericConfig.getChannel();
-        }
-        
-        System.out.println("   → No valid routing found, using default");
-        return "genericProcessingChannel";
-    }
-
+    // contentRouterInputChannel and its single router, routeXmlByContent, are declared in
+    // IntegrationConfig and route through the RoutingTable built from this configuration
+    
     // =================== DYNAMIC TRANSFORMERS ===================
     
     @Bean
@@ -195,7 +157,7 @@ public class EnhancedIntegrationConfig {
                     case "product":
                         return transformationService.transformProductXmlToJson(xmlPayload);
                     default:
-                        return transformationService.transformGenericXmlToJson(xmlPayload);
+                        return transformationService.transformXmlToJson(xmlPayload, xmlType.toLowerCase());
                 }
             } catch (Exception e) {
                 System.err.println("❌ Specialized transformer failed: " + e.getMessage());
@@ -204,23 +166,6 @@ public class EnhancedIntegrationConfig {
         }
     }
 
-    // =================== CONFIGURABLE OUTPUT HANDLERS WITH PUB/SUB ===================
-    
-    public void handleOutput(String jsonResult, String xmlType) {
-        System.out.println("🎯 === " + xmlType.toUpperCase() + " PROCESSING COMPLETE ===");
-        System.out.println("📄 Result: " + jsonResult);
-        
-        // Publish to subscribers if pub/sub is enabled
-        if (spiAppProperties.getPubsub().getMessageBroker().isEnabled() && pubSubService != null) {
-            var xmlTypeConfig = spiAppProperties.getRouting().getXmlTypes().get(xmlType.toLowerCase());
-            if (xmlTypeConfig != null && xmlTypeConfig.getSubscribers() != null) {
-                pubSubService.publishToSubscribers(xmlType, jsonResult, xmlTypeConfig.getSubscribers());
-            }
-        }
-        
-        System.out.println("=" + "=".repeat(xmlType.length() + 35));
-    }
-
     // =================== HELPER METHODS ===================
     
     private ChannelInterceptor createLoggingInterceptor(String channelName) {
@@ -237,20 +182,8 @@ public class EnhancedIntegrationConfig {
     }
     
     private String transformWithMappers(String xmlPayload, String type) {
-        try {
-            var jsonNode = xmlMapper.readTree(xmlPayload);
-            String jsonData = objectMapper.writeValueAsString(jsonNode);
-            
-            return String.format(
-                "{ \"type\": \"%s\", \"timestamp\": \"%d\", \"processor\": \"ConfigurableTransformer\", \"status\": \"success\", \"data\": %s }", 
-                type, System.currentTimeMillis(), jsonData
-            );
-        } catch (Exception e) {
-            return String.format(
-                "{ \"type\": \"%s\", \"timestamp\": \"%d\", \"processor\": \"ConfigurableTransformer\", \"status\": \"error\", \"error\": \"%s\" }", 
-                type, System.currentTimeMillis(), e.getMessage()
-            );
-        }
+        return envelopeWriter.write(envelopeWriter.template(type, "ConfigurableTransformer"),
+            generator -> objectMapper.writeTree(generator, xmlMapper.readTree(xmlPayload)));
     }
 
     // =================== ERROR HANDLING ===================
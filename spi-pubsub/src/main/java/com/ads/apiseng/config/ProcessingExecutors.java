@@ -0,0 +1,66 @@
+package com.ads.apiseng.config;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Builds the executors selected by {@code spi-app.processing.executor}: the bounded platform pool,
+ * or a virtual thread per task with a concurrency limit. Virtual threads need Java 21; on older
+ * runtimes the virtual mode falls back to the platform pool.
+ */
+public final class ProcessingExecutors {
+
+    private static final boolean VIRTUAL_THREADS_SUPPORTED = Runtime.version().feature() >= 21;
+
+    private ProcessingExecutors() {
+    }
+
+    /**
+     * True if virtual threads were selected and the runtime supports them.
+     */
+    public static boolean isVirtual(SpiAppProperties.Processing processing) {
+        return "virtual".equalsIgnoreCase(processing.getExecutor().getMode()) && VIRTUAL_THREADS_SUPPORTED;
+    }
+
+    /**
+     * The concurrency limit for processing tasks in virtual mode, defaulting to the platform pool's maximum.
+     */
+    public static int concurrencyLimit(SpiAppProperties.Processing processing) {
+        int limit = processing.getExecutor().getConcurrencyLimit();
+        return limit > 0 ? limit : processing.getThreadPoolSize() * 2;
+    }
+
+    public static AsyncTaskExecutor create(SpiAppProperties.Processing processing, String threadNamePrefix) {
+        String mode = processing.getExecutor().getMode();
+        if (isVirtual(processing)) {
+            int limit = concurrencyLimit(processing);
+            System.out.println("🧵 " + threadNamePrefix + " executor: virtual threads, concurrency limit " + limit);
+            return virtual(threadNamePrefix, limit);
+        }
+        if ("virtual".equalsIgnoreCase(mode)) {
+            System.out.println("⚠️ Virtual threads need Java 21 (running " + Runtime.version().feature()
+                + "), " + threadNamePrefix + " executor uses platform threads");
+        } else if (!"platform".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("Unknown processing.executor.mode: " + mode + " (platform or virtual)");
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(processing.getThreadPoolSize());
+        executor.setMaxPoolSize(processing.getThreadPoolSize() * 2);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * A virtual thread per task; once {@code concurrencyLimit} tasks are running, submitters wait
+     * for one to finish rather than queueing without bound.
+     */
+    public static SimpleAsyncTaskExecutor virtual(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+}
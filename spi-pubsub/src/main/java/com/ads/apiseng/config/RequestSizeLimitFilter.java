@@ -0,0 +1,117 @@
+package com.ads.apiseng.config;
+
+import com.ads.apiseng.util.XmlLimitExceededException;
+import com.ads.apiseng.util.XmlLimits;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Applies {@code spi-app.processing.limits.max-bytes} to request bodies on the
+ * {@code /api/transform} endpoints. A declared Content-Length over the limit is answered with
+ * 413 before the body is read; chunked bodies are counted as they are read and cut off at the
+ * limit. The async endpoint counts its own input, since its reads are non-blocking.
+ */
+@Component
+public class RequestSizeLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private XmlLimits xmlLimits;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(CompressionFilter.TRANSFORM_PATH) || xmlLimits.getMaxBytes() == Long.MAX_VALUE;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long maxBytes = xmlLimits.getMaxBytes();
+        if (request.getContentLengthLong() > maxBytes) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                "Request body of " + request.getContentLengthLong() + " bytes exceeds the limit of " + maxBytes);
+            return;
+        }
+        if (request.getRequestURI().equals(CompressionFilter.ASYNC_PATH)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        chain.doFilter(new LimitedRequest(request, maxBytes), response);
+    }
+
+    private static final class LimitedRequest extends HttpServletRequestWrapper {
+
+        private final long maxBytes;
+        private ServletInputStream limited;
+
+        LimitedRequest(HttpServletRequest request, long maxBytes) {
+            super(request);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (limited == null) {
+                ServletInputStream input = super.getInputStream();
+                limited = new ServletInputStream() {
+                    private long count;
+
+                    @Override
+                    public int read() throws IOException {
+                        int value = input.read();
+                        if (value >= 0) {
+                            count(1);
+                        }
+                        return value;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int read = input.read(buffer, offset, length);
+                        if (read > 0) {
+                            count(read);
+                        }
+                        return read;
+                    }
+
+                    private void count(int read) {
+                        count += read;
+                        if (count > maxBytes) {
+                            throw new XmlLimitExceededException(true, "Maximum document size limit (" + maxBytes + ") exceeded");
+                        }
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return input.isFinished();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return input.isReady();
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener readListener) {
+                        input.setReadListener(readListener);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        input.close();
+                    }
+                };
+            }
+            return limited;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.ads.apiseng.config;
+
+import com.ads.apiseng.util.XmlLimits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SpiAppConfiguration {
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    // =================== PARSER LIMITS ===================
+
+    @Bean
+    public XmlLimits xmlLimits() {
+        SpiAppProperties.Processing.Limits limits = spiAppProperties.getProcessing().getLimits();
+        System.out.println("🛡️ XML parser limits: " + limits.getMaxBytes() + " bytes, depth " + limits.getMaxDepth()
+            + ", " + limits.getMaxElements() + " elements, " + limits.getMaxAttributes() + " attributes, text "
+            + limits.getMaxTextLength());
+        return new XmlLimits(limits.getMaxBytes(), limits.getMaxDepth(), limits.getMaxElements(),
+            limits.getMaxAttributes(), limits.getMaxTextLength());
+    }
+}
@@ -77,6 +77,10 @@ public class SpiAppProperties {
             private boolean enabled = true;
             private boolean parallelProcessing = true;
             private boolean errorHandling = true;
+            private boolean partitioned = false;
+            private int lanes = Runtime.getRuntime().availableProcessors();
+            private Map<String, String> keyPaths;
+            private Admission admission = new Admission();
             
             public boolean isEnabled() { return enabled; }
             public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -86,6 +90,49 @@ public class SpiAppProperties {
             
             public boolean isErrorHandling() { return errorHandling; }
             public void setErrorHandling(boolean errorHandling) { this.errorHandling = errorHandling; }
+            
+            public boolean isPartitioned() { return partitioned; }
+            public void setPartitioned(boolean partitioned) { this.partitioned = partitioned; }
+            
+            public int getLanes() { return lanes; }
+            public void setLanes(int lanes) { this.lanes = lanes; }
+            
+            public Map<String, String> getKeyPaths() { return keyPaths; }
+            public void setKeyPaths(Map<String, String> keyPaths) { this.keyPaths = keyPaths; }
+            
+            public Admission getAdmission() { return admission; }
+            public void setAdmission(Admission admission) { this.admission = admission; }
+        }
+        
+        public static class Admission {
+            private boolean enabled = false;
+            private int initialLimit = 20;
+            private int minLimit = 1;
+            private int maxLimit = 200;
+            private double latencyTolerance = 2.0;
+            private double backoffRatio = 0.9;
+            private int retryAfterSeconds = 1;
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public int getInitialLimit() { return initialLimit; }
+            public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+            
+            public int getMinLimit() { return minLimit; }
+            public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+            
+            public int getMaxLimit() { return maxLimit; }
+            public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+            
+            public double getLatencyTolerance() { return latencyTolerance; }
+            public void setLatencyTolerance(double latencyTolerance) { this.latencyTolerance = latencyTolerance; }
+            
+            public double getBackoffRatio() { return backoffRatio; }
+            public void setBackoffRatio(double backoffRatio) { this.backoffRatio = backoffRatio; }
+            
+            public int getRetryAfterSeconds() { return retryAfterSeconds; }
+            public void setRetryAfterSeconds(int retryAfterSeconds) { this.retryAfterSeconds = retryAfterSeconds; }
         }
         
         public static class OriginalTransformer {
@@ -108,6 +155,9 @@ public class SpiAppProperties {
         private String defaultRoute = "default";
         private Map<String, String> routes;
         private Map<String, XmlTypeConfig> xmlTypes;
+        private Map<String, MappingPlanConfig> mappingPlans;
+        private Detection detection = new Detection();
+        private RecipientList recipientList = new RecipientList();
         
         public boolean isEnabled() { return enabled; }
         public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -121,11 +171,27 @@ public class SpiAppProperties {
         public Map<String, XmlTypeConfig> getXmlTypes() { return xmlTypes; }
         public void setXmlTypes(Map<String, XmlTypeConfig> xmlTypes) { this.xmlTypes = xmlTypes; }
         
+        public Map<String, MappingPlanConfig> getMappingPlans() { return mappingPlans; }
+        public void setMappingPlans(Map<String, MappingPlanConfig> mappingPlans) { this.mappingPlans = mappingPlans; }
+        
+        public Detection getDetection() { return detection; }
+        public void setDetection(Detection detection) { this.detection = detection; }
+        
+        public RecipientList getRecipientList() { return recipientList; }
+        public void setRecipientList(RecipientList recipientList) { this.recipientList = recipientList; }
+        
         public static class XmlTypeConfig {
             private boolean enabled = true;
             private String channel;
             private String transformer;
+            private String engine = "tree";
+            private boolean cacheResults = false;
+            private String recordElement;
+            private List<String> projection;
             private List<String> subscribers;
+            private String deltaKeyPath;
+            private DetectionRules detection;
+            private Bulkhead bulkhead;
             
             public boolean isEnabled() { return enabled; }
             public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -136,8 +202,123 @@ public class SpiAppProperties {
             public String getTransformer() { return transformer; }
             public void setTransformer(String transformer) { this.transformer = transformer; }
             
+            public String getEngine() { return engine; }
+            public void setEngine(String engine) { this.engine = engine; }
+            
+            public boolean isCacheResults() { return cacheResults; }
+            public void setCacheResults(boolean cacheResults) { this.cacheResults = cacheResults; }
+            
+            public String getRecordElement() { return recordElement; }
+            public void setRecordElement(String recordElement) { this.recordElement = recordElement; }
+            
+            public List<String> getProjection() { return projection; }
+            public void setProjection(List<String> projection) { this.projection = projection; }
+            
             public List<String> getSubscribers() { return subscribers; }
             public void setSubscribers(List<String> subscribers) { this.subscribers = subscribers; }
+            
+            public String getDeltaKeyPath() { return deltaKeyPath; }
+            public void setDeltaKeyPath(String deltaKeyPath) { this.deltaKeyPath = deltaKeyPath; }
+            
+            public DetectionRules getDetection() { return detection; }
+            public void setDetection(DetectionRules detection) { this.detection = detection; }
+            
+            public Bulkhead getBulkhead() { return bulkhead; }
+            public void setBulkhead(Bulkhead bulkhead) { this.bulkhead = bulkhead; }
+        }
+        
+        public static class Bulkhead {
+            private boolean enabled = true;
+            private int poolSize = 1;
+            private int queueCapacity = 100;
+            private String rejectionPolicy = "abort";
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public int getPoolSize() { return poolSize; }
+            public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+            
+            public int getQueueCapacity() { return queueCapacity; }
+            public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+            
+            public String getRejectionPolicy() { return rejectionPolicy; }
+            public void setRejectionPolicy(String rejectionPolicy) { this.rejectionPolicy = rejectionPolicy; }
+        }
+        
+        public static class DetectionRules {
+            private int priority = 100;
+            private List<String> rootElements;
+            private List<String> namespaces;
+            private List<String> keywords;
+            private List<String> paths;
+            
+            public int getPriority() { return priority; }
+            public void setPriority(int priority) { this.priority = priority; }
+            
+            public List<String> getRootElements() { return rootElements; }
+            public void setRootElements(List<String> rootElements) { this.rootElements = rootElements; }
+            
+            public List<String> getNamespaces() { return namespaces; }
+            public void setNamespaces(List<String> namespaces) { this.namespaces = namespaces; }
+            
+            public List<String> getKeywords() { return keywords; }
+            public void setKeywords(List<String> keywords) { this.keywords = keywords; }
+            
+            public List<String> getPaths() { return paths; }
+            public void setPaths(List<String> paths) { this.paths = paths; }
+        }
+        
+        public static class MappingPlanConfig {
+            private List<FieldMapping> fields;
+            
+            public List<FieldMapping> getFields() { return fields; }
+            public void setFields(List<FieldMapping> fields) { this.fields = fields; }
+        }
+        
+        public static class FieldMapping {
+            private String name;
+            private String path;
+            private String type = "string";
+            private boolean repeated = false;
+            
+            public String getName() { return name; }
+            public void setName(String name) { this.name = name; }
+            
+            public String getPath() { return path; }
+            public void setPath(String path) { this.path = path; }
+            
+            public String getType() { return type; }
+            public void setType(String type) { this.type = type; }
+            
+            public boolean isRepeated() { return repeated; }
+            public void setRepeated(boolean repeated) { this.repeated = repeated; }
+        }
+        
+        public static class RecipientList {
+            private boolean enabled = false;
+            private int parallelism = 0;
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public int getParallelism() { return parallelism; }
+            public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+        }
+        
+        public static class Detection {
+            private String mode = "body";
+            private int headChars = 4096;
+            private boolean bodyFallback = true;
+            
+            public String getMode() { return mode; }
+            public void setMode(String mode) { this.mode = mode; }
+            
+            public int getHeadChars() { return headChars; }
+            public void setHeadChars(int headChars) { this.headChars = headChars; }
+            
+            public boolean isBodyFallback() { return bodyFallback; }
+            public void setBodyFallback(boolean bodyFallback) { this.bodyFallback = bodyFallback; }
         }
     }
     
@@ -182,6 +363,7 @@ public class SpiAppProperties {
             private boolean enabled = true;
             private List<String> topics;
             private boolean async = true;
+            private String format = "json";
             
             public boolean isEnabled() { return enabled; }
             public void setEnabled(boolean enabled) { this.enabled = enabled; }
@@ -191,6 +373,9 @@ public class SpiAppProperties {
             
             public boolean isAsync() { return async; }
             public void setAsync(boolean async) { this.async = async; }
+            
+            public String getFormat() { return format; }
+            public void setFormat(String format) { this.format = format; }
         }
     }
     
@@ -203,6 +388,12 @@ public class SpiAppProperties {
         private int retryAttempts = 3;
         private boolean enableMetrics = true;
         private boolean enableTracing = true;
+        private ResultCache resultCache = new ResultCache();
+        private ParallelRecords parallelRecords = new ParallelRecords();
+        private FileTransform fileTransform = new FileTransform();
+        private Delta delta = new Delta();
+        private Limits limits = new Limits();
+        private Executor executor = new Executor();
         
         public boolean isParallelProcessing() { return parallelProcessing; }
         public void setParallelProcessing(boolean parallelProcessing) { this.parallelProcessing = parallelProcessing; }
@@ -227,6 +418,118 @@ public class SpiAppProperties {
         
         public boolean isEnableTracing() { return enableTracing; }
         public void setEnableTracing(boolean enableTracing) { this.enableTracing = enableTracing; }
+        
+        public ResultCache getResultCache() { return resultCache; }
+        public void setResultCache(ResultCache resultCache) { this.resultCache = resultCache; }
+        
+        public ParallelRecords getParallelRecords() { return parallelRecords; }
+        public void setParallelRecords(ParallelRecords parallelRecords) { this.parallelRecords = parallelRecords; }
+        
+        public FileTransform getFileTransform() { return fileTransform; }
+        public void setFileTransform(FileTransform fileTransform) { this.fileTransform = fileTransform; }
+        
+        public Delta getDelta() { return delta; }
+        public void setDelta(Delta delta) { this.delta = delta; }
+        
+        public Limits getLimits() { return limits; }
+        public void setLimits(Limits limits) { this.limits = limits; }
+        
+        public Executor getExecutor() { return executor; }
+        public void setExecutor(Executor executor) { this.executor = executor; }
+        
+        public static class Executor {
+            private String mode = "platform";
+            private int concurrencyLimit = 0;
+            
+            public String getMode() { return mode; }
+            public void setMode(String mode) { this.mode = mode; }
+            
+            public int getConcurrencyLimit() { return concurrencyLimit; }
+            public void setConcurrencyLimit(int concurrencyLimit) { this.concurrencyLimit = concurrencyLimit; }
+        }
+        
+        public static class ResultCache {
+            private boolean enabled = false;
+            private long maxBytes = 64L * 1024 * 1024;
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public long getMaxBytes() { return maxBytes; }
+            public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+        }
+        
+        public static class ParallelRecords {
+            private boolean enabled = false;
+            private int parallelism = 0;
+            private int minRecords = 64;
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public int getParallelism() { return parallelism; }
+            public void setParallelism(int parallelism) { this.parallelism = parallelism; }
+            
+            public int getMinRecords() { return minRecords; }
+            public void setMinRecords(int minRecords) { this.minRecords = minRecords; }
+        }
+        
+        public static class FileTransform {
+            private boolean enabled = false;
+            private String inputDirectory;
+            private String outputDirectory;
+            private boolean watch = false;
+            private String filePattern = "*.xml";
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public String getInputDirectory() { return inputDirectory; }
+            public void setInputDirectory(String inputDirectory) { this.inputDirectory = inputDirectory; }
+            
+            public String getOutputDirectory() { return outputDirectory; }
+            public void setOutputDirectory(String outputDirectory) { this.outputDirectory = outputDirectory; }
+            
+            public boolean isWatch() { return watch; }
+            public void setWatch(boolean watch) { this.watch = watch; }
+            
+            public String getFilePattern() { return filePattern; }
+            public void setFilePattern(String filePattern) { this.filePattern = filePattern; }
+        }
+        
+        public static class Delta {
+            private boolean enabled = false;
+            private long maxBytes = 32L * 1024 * 1024;
+            
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+            
+            public long getMaxBytes() { return maxBytes; }
+            public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+        }
+        
+        public static class Limits {
+            private long maxBytes = 64L * 1024 * 1024;
+            private int maxDepth = 100;
+            private long maxElements = 5_000_000;
+            private int maxAttributes = 256;
+            private int maxTextLength = 4 * 1024 * 1024;
+            
+            public long getMaxBytes() { return maxBytes; }
+            public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+            
+            public int getMaxDepth() { return maxDepth; }
+            public void setMaxDepth(int maxDepth) { this.maxDepth = maxDepth; }
+            
+            public long getMaxElements() { return maxElements; }
+            public void setMaxElements(long maxElements) { this.maxElements = maxElements; }
+            
+            public int getMaxAttributes() { return maxAttributes; }
+            public void setMaxAttributes(int maxAttributes) { this.maxAttributes = maxAttributes; }
+            
+            public int getMaxTextLength() { return maxTextLength; }
+            public void setMaxTextLength(int maxTextLength) { this.maxTextLength = maxTextLength; }
+        }
     }
     
     public static class ErrorHandling {
@@ -1,7 +1,14 @@
 package com.ads.apiseng.controller;
 
 import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.service.AdaptiveConcurrencyLimiter;
+import com.ads.apiseng.service.EntityDeltaStore;
+import com.ads.apiseng.service.MappedFileTransformer;
 import com.ads.apiseng.service.PubSubService;
+import com.ads.apiseng.service.RoutingTable;
+import com.ads.apiseng.service.TransformationResultCache;
+import com.ads.apiseng.service.TypeBulkheads;
+import com.ads.apiseng.util.XmlTypeDetector;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +29,27 @@ public class ConfigurationManagementController {
     @Autowired(required = false)
     private PubSubService pubSubService;
 
+    @Autowired(required = false)
+    private TransformationResultCache resultCache;
+
+    @Autowired(required = false)
+    private MappedFileTransformer fileTransformer;
+
+    @Autowired(required = false)
+    private EntityDeltaStore deltaStore;
+
+    @Autowired
+    private XmlTypeDetector xmlTypeDetector;
+
+    @Autowired
+    private RoutingTable routingTable;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter admissionLimiter;
+
+    @Autowired
+    private TypeBulkheads typeBulkheads;
+
     // =================== CONFIGURATION STATUS ===================
 
     @GetMapping("/config/status")
@@ -92,6 +120,43 @@ public class ConfigurationManagementController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping("/config/xml-types/{type}/toggle")
+    public ResponseEntity<Map<String, Object>> toggleXmlType(@PathVariable String type, @RequestParam boolean enabled) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", System.currentTimeMillis());
+        
+        var xmlTypes = spiAppProperties.getRouting().getXmlTypes();
+        if (xmlTypes == null || !xmlTypes.containsKey(type.toLowerCase())) {
+            response.put("status", "error");
+            response.put("error", "Unknown xml-type: " + type);
+            return ResponseEntity.badRequest().body(response);
+        }
+        
+        var xmlTypeConfig = xmlTypes.get(type.toLowerCase());
+        boolean wasEnabled = xmlTypeConfig.isEnabled();
+        xmlTypeConfig.setEnabled(enabled);
+        try {
+            // Detection and routing change together, so a disabled type is neither detected nor routed
+            xmlTypeDetector.compile();
+        } catch (IllegalArgumentException e) {
+            xmlTypeConfig.setEnabled(wasEnabled);
+            response.put("status", "error");
+            response.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+        routingTable.rebuild();
+        response.put("status", "success");
+        response.put("message", "XML type " + type.toLowerCase() + " " + (enabled ? "enabled" : "disabled"));
+        response.put("routes", routingTable.describe());
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/config/routing/table")
+    public ResponseEntity<Map<String, Object>> getRoutingTable() {
+        return ResponseEntity.ok(routingTable.describe());
+    }
+
     @PostMapping("/config/pubsub/toggle")
     public ResponseEntity<Map<String, Object>> togglePubSub(@RequestParam boolean enabled) {
         Map<String, Object> response = new HashMap<>();
@@ -129,6 +194,101 @@ public class ConfigurationManagementController {
         return ResponseEntity.ok(response);
     }
 
+    // =================== RESULT CACHE ===================
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", System.currentTimeMillis());
+        
+        if (resultCache != null) {
+            response.put("status", "active");
+            response.put("cache", resultCache.getStats());
+        } else {
+            response.put("status", "disabled");
+            response.put("message", "Result cache is not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/cache/clear")
+    public ResponseEntity<Map<String, Object>> clearCache() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", System.currentTimeMillis());
+        
+        if (resultCache != null) {
+            resultCache.clear();
+            response.put("status", "success");
+            response.put("message", "Result cache cleared");
+        } else {
+            response.put("status", "disabled");
+            response.put("message", "Result cache is not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    // =================== DELTA STORE ===================
+
+    @GetMapping("/delta/stats")
+    public ResponseEntity<Map<String, Object>> getDeltaStats() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", System.currentTimeMillis());
+        
+        if (deltaStore != null) {
+            response.put("status", "active");
+            response.put("delta", deltaStore.getStats());
+        } else {
+            response.put("status", "disabled");
+            response.put("message", "Delta store is not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/delta/clear")
+    public ResponseEntity<Map<String, Object>> clearDeltas() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", System.currentTimeMillis());
+        
+        if (deltaStore != null) {
+            deltaStore.clear();
+            response.put("status", "success");
+            response.put("message", "Delta store cleared; every entity is sent in full next time");
+        } else {
+            response.put("status", "disabled");
+            response.put("message", "Delta store is not available");
+        }
+        
+        return ResponseEntity.ok(response);
+    }
+
+    // =================== FILE TRANSFORM ===================
+
+    @PostMapping("/files/transform")
+    public ResponseEntity<Map<String, Object>> transformFile(@RequestParam String file,
+                                                             @RequestParam(required = false) String type) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", System.currentTimeMillis());
+        
+        if (fileTransformer == null || !fileTransformer.isEnabled()) {
+            response.put("status", "disabled");
+            response.put("message", "File transform is not enabled");
+            return ResponseEntity.ok(response);
+        }
+        
+        try {
+            response.put("status", "success");
+            response.put("result", fileTransformer.transform(file, type));
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("status", "error");
+            response.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
+    }
+
     // =================== HEALTH AND METRICS ===================
 
     @GetMapping("/health")
@@ -144,6 +304,9 @@ public class ConfigurationManagementController {
         components.put("errorHandling", spiAppProperties.getErrorHandling().isEnabled() ? "UP" : "DOWN");
         
         health.put("components", components);
+        // Current limit, in-flight messages and queue depth in front of the content router
+        health.put("admission", admissionLimiter.getStats());
+        health.put("bulkheads", typeBulkheads.getStats());
         health.put("configuration", Map.of(
             "parallelProcessing", spiAppProperties.getProcessing().isParallelProcessing(),
             "maxRetries", spiAppProperties.getProcessing().getMaxRetries(),
@@ -159,6 +322,15 @@ public class ConfigurationManagementController {
     public ResponseEntity<Map<String, Object>> reloadConfiguration() {
         Map<String, Object> response = new HashMap<>();
         response.put("timestamp", System.currentTimeMillis());
+        
+        try {
+            response.put("detectionTypes", xmlTypeDetector.compile());
+            response.put("routingTypes", routingTable.rebuild());
+        } catch (IllegalArgumentException e) {
+            response.put("status", "error");
+            response.put("message", "Invalid detection rules: " + e.getMessage());
+            return ResponseEntity.badRequest().body(response);
+        }
         response.put("status", "success");
         response.put("message", "Configuration reloaded successfully");
         
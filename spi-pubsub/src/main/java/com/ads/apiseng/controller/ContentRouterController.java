@@ -1,10 +1,21 @@
 package com.ads.apiseng.controller;
 
 import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.service.AdaptiveConcurrencyLimiter;
 import com.ads.apiseng.service.PubSubService;
+import com.ads.apiseng.service.RecipientListRouter;
+import com.ads.apiseng.service.RouterOverloadedException;
+import com.ads.apiseng.util.XmlLimitExceededException;
+import com.ads.apiseng.util.XmlLimits;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.integration.core.MessagingTemplate;
+import org.springframework.integration.support.MessageBuilder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -22,6 +33,18 @@ public class ContentRouterController {
     @Autowired(required = false)
     private PubSubService pubSubService;
 
+    @Autowired
+    private RecipientListRouter recipientListRouter;
+
+    @Autowired
+    private MessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AdaptiveConcurrencyLimiter admissionLimiter;
+
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getStatus() {
         Map<String, Object> status = new HashMap<>();
@@ -54,4 +77,79 @@ public class ContentRouterController {
         
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Routes an XML document to every type it carries data for. With {@code aggregate} (the
+     * default) the recipients' envelopes are returned together, keyed by type; otherwise the
+     * document goes through the recipient-list channel to each type's output channel.
+     */
+    @PostMapping(value = "/route-xml",
+                 consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE},
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> routeXml(@RequestBody String xmlContent,
+                                      @RequestParam(defaultValue = "true") boolean aggregate) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", System.currentTimeMillis());
+        
+        if (!recipientListRouter.isEnabled()) {
+            response.put("status", "disabled");
+            response.put("message", "Recipient-list routing is disabled");
+            return ResponseEntity.ok(response);
+        }
+        
+        try {
+            if (!aggregate) {
+                messagingTemplate.send("recipientListChannel", MessageBuilder.withPayload(xmlContent).build());
+                response.put("status", "dispatched");
+                return ResponseEntity.accepted().body(response);
+            }
+            
+            Map<String, String> results = recipientListRouter.route(xmlContent);
+            ObjectNode body = objectMapper.createObjectNode();
+            body.put("timestamp", System.currentTimeMillis());
+            body.put("status", "success");
+            body.putPOJO("recipients", results.keySet());
+            ObjectNode envelopes = body.putObject("results");
+            for (Map.Entry<String, String> result : results.entrySet()) {
+                envelopes.set(result.getKey(), objectMapper.readTree(result.getValue()));
+            }
+            return ResponseEntity.ok(body);
+        } catch (Exception e) {
+            XmlLimitExceededException violation = XmlLimits.findViolation(e);
+            response.put("status", "error");
+            response.put("message", violation != null ? violation.getMessage() : e.getMessage());
+            return ResponseEntity.status(violation != null ? violation.getStatus() : 400).body(response);
+        }
+    }
+
+    /**
+     * Sends an XML document through the content router. Under overload it is refused straight
+     * away with 429 (over the admission limit) or 503 (executor saturated) and a Retry-After header.
+     */
+    @PostMapping(value = "/dispatch",
+                 consumes = {MediaType.APPLICATION_XML_VALUE, MediaType.TEXT_XML_VALUE},
+                 produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Map<String, Object>> dispatchXml(@RequestBody String xmlContent) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("timestamp", System.currentTimeMillis());
+        
+        try {
+            messagingTemplate.send("contentRouterInputChannel", MessageBuilder.withPayload(xmlContent).build());
+            response.put("status", "routed");
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            RouterOverloadedException overload = admissionLimiter.findOverload(e);
+            if (overload != null) {
+                response.put("status", "overloaded");
+                response.put("message", overload.getMessage());
+                return ResponseEntity.status(overload.getStatus())
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(overload.getRetryAfterSeconds()))
+                    .body(response);
+            }
+            XmlLimitExceededException violation = XmlLimits.findViolation(e);
+            response.put("status", "error");
+            response.put("message", violation != null ? violation.getMessage() : e.getMessage());
+            return ResponseEntity.status(violation != null ? violation.getStatus() : 400).body(response);
+        }
+    }
+}
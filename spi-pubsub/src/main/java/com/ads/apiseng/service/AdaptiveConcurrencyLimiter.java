@@ -0,0 +1,196 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.integration.channel.AbstractExecutorChannel;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive admission control in front of the content router input channel
+ * ({@code spi-app.channels.content-router.admission}).
+ *
+ * At most {@code limit} messages are in flight, i.e. admitted and not yet handled, queueing
+ * included. Beyond that a message is refused at once with a {@link RouterOverloadedException}
+ * rather than waiting in (or overflowing) the executor's queue. The limit follows AIMD on the
+ * observed latency: it grows by one per limit's worth of completions while latency stays within
+ * {@code latency-tolerance} times the recent minimum, and is multiplied by {@code backoff-ratio}
+ * once per congestion episode when it doesn't or the executor rejects a task.
+ *
+ * On executor channels the latency runs from admission to the end of handling, so time spent in
+ * the queue counts; on direct channels it is the send itself.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter implements ExecutorChannelInterceptor {
+
+    public static final String ADMITTED_AT_HEADER = "admitted-at";
+
+    // Faster completions than this are never treated as congestion, however low the minimum
+    private static final long LATENCY_FLOOR_NANOS = 1_000_000;
+    // The latency minimum is renewed from the last window's samples so it follows drifting load
+    private static final int MIN_LATENCY_WINDOW = 1000;
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile double limit;
+    private volatile long minLatencyNanos;
+    private volatile long averageLatencyNanos;
+    private long windowMinLatencyNanos = Long.MAX_VALUE;
+    private int windowSamples;
+    private long lastDecreaseNanos;
+
+    @PostConstruct
+    public void init() {
+        limit = config().getInitialLimit();
+    }
+
+    public boolean isEnabled() {
+        return config().isEnabled();
+    }
+
+    /**
+     * The router overload that caused {@code error}: a refusal from this limiter, or a
+     * {@link TaskRejectedException} from a saturated executor, reported as 503. Null for other errors.
+     */
+    public RouterOverloadedException findOverload(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RouterOverloadedException) {
+                return (RouterOverloadedException) cause;
+            }
+            if (cause instanceof TaskRejectedException) {
+                return new RouterOverloadedException(503, config().getRetryAfterSeconds(), "Content router executor saturated");
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    // =================== INTERCEPTOR ===================
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!isEnabled()) {
+            return message;
+        }
+        int current = (int) limit;
+        if (inFlight.incrementAndGet() > current) {
+            inFlight.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new RouterOverloadedException(429, config().getRetryAfterSeconds(),
+                "Content router at its concurrency limit (" + current + ")");
+        }
+        admitted.incrementAndGet();
+        if (channel instanceof AbstractExecutorChannel) {
+            queued.incrementAndGet();
+        }
+        return MessageBuilder.fromMessage(message).setHeader(ADMITTED_AT_HEADER, System.nanoTime()).build();
+    }
+
+    @Override
+    public void afterSendCompletion(Message<?> message, MessageChannel channel, boolean sent, Exception ex) {
+        // Executor channels complete in afterMessageHandled, unless the task never got that far
+        if (channel instanceof AbstractExecutorChannel) {
+            if (ex == null && sent) {
+                return;
+            }
+            if (message.getHeaders().containsKey(ADMITTED_AT_HEADER)) {
+                queued.decrementAndGet();
+            }
+        }
+        release(message, ex != null && findOverload(ex) != null);
+    }
+
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        if (message.getHeaders().containsKey(ADMITTED_AT_HEADER)) {
+            queued.decrementAndGet();
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        // A full downstream bulkhead is congestion too
+        release(message, ex != null && findOverload(ex) != null);
+    }
+
+    // =================== AIMD ===================
+
+    private void release(Message<?> message, boolean rejectedByExecutor) {
+        Long admittedAt = message.getHeaders().get(ADMITTED_AT_HEADER, Long.class);
+        if (admittedAt == null) {
+            return;
+        }
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        onSample(admittedAt, now - admittedAt, rejectedByExecutor);
+    }
+
+    private synchronized void onSample(long admittedAt, long latencyNanos, boolean dropped) {
+        SpiAppProperties.Channels.Admission config = config();
+        if (!dropped) {
+            averageLatencyNanos = averageLatencyNanos == 0 ? latencyNanos : (averageLatencyNanos * 7 + latencyNanos) / 8;
+            windowMinLatencyNanos = Math.min(windowMinLatencyNanos, latencyNanos);
+            if (minLatencyNanos == 0 || latencyNanos < minLatencyNanos) {
+                minLatencyNanos = latencyNanos;
+            }
+            if (++windowSamples == MIN_LATENCY_WINDOW) {
+                minLatencyNanos = windowMinLatencyNanos;
+                windowMinLatencyNanos = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+        }
+
+        boolean congested = dropped
+            || latencyNanos > Math.max(LATENCY_FLOOR_NANOS, (long) (minLatencyNanos * config.getLatencyTolerance()));
+        if (congested) {
+            // Messages admitted before the last cut saw the old limit; one cut per episode
+            if (admittedAt - lastDecreaseNanos > 0 || lastDecreaseNanos == 0) {
+                limit = Math.max(config.getMinLimit(), limit * config.getBackoffRatio());
+                lastDecreaseNanos = System.nanoTime();
+            }
+        } else if (inFlight.get() + 1 >= limit / 2) {
+            // Only grow a limit that is actually being used
+            limit = Math.min(config.getMaxLimit(), limit + 1.0 / limit);
+        }
+    }
+
+    // =================== STATS ===================
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("limit", (int) limit);
+        stats.put("inFlight", inFlight.get());
+        // Admitted to an executor channel but not picked up by a thread yet
+        stats.put("queueDepth", queued.get());
+        stats.put("admitted", admitted.get());
+        stats.put("rejected", rejected.get());
+        stats.put("minLatencyMs", minLatencyNanos / 1_000_000.0);
+        stats.put("averageLatencyMs", averageLatencyNanos / 1_000_000.0);
+        return stats;
+    }
+
+    private SpiAppProperties.Channels.Admission config() {
+        return spiAppProperties.getChannels().getContentRouter().getAdmission();
+    }
+}
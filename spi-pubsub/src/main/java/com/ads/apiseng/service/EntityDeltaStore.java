@@ -0,0 +1,164 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.JsonDiff;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the last published {@code data} of each entity so subscribers can be sent an RFC 6902
+ * JSON Patch instead of the whole document when the same entity is sent again.
+ *
+ * Entities are identified by the xml-type plus the value at the type's {@code delta-key-path}
+ * (a JSON Pointer into the data, e.g. {@code /id}). The store is bounded by
+ * {@code spi-app.processing.delta.max-bytes}; an evicted entity simply gets its next version in
+ * full. Error envelopes and documents without a key are published as they are.
+ *
+ * Every version of an entity is numbered, and versions are assigned atomically per entity. A
+ * full document carries its {@code version}; a patch carries its {@code version} and the
+ * {@code baseVersion} it applies to, so a subscriber that missed a version, or got two out of
+ * order, can tell and wait for the next full document.
+ */
+@Component
+public class EntityDeltaStore {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, JsonPointer> keyPointers = new ConcurrentHashMap<>();
+    private final LongAdder patches = new LongAdder();
+    private final LongAdder fullDocuments = new LongAdder();
+    private final LongAdder documentBytes = new LongAdder();
+    private final LongAdder publishedBytes = new LongAdder();
+    private Cache<String, Version> store;
+
+    @PostConstruct
+    public void init() {
+        long maxBytes = spiAppProperties.getProcessing().getDelta().getMaxBytes();
+        store = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String entity, Version version) -> (int) Math.min(Integer.MAX_VALUE,
+                    ENTRY_OVERHEAD_BYTES + 2L * (entity.length() + version.data.length())))
+                .build();
+        System.out.println("🧮 Entity delta store ready (max " + maxBytes + " bytes)");
+    }
+
+    public boolean isEnabled(String type) {
+        return keyPointerFor(type) != null;
+    }
+
+    /**
+     * Returns what to publish for a transformed envelope: a patch envelope
+     * ({@code {type, timestamp, processor, status, key, version, baseVersion, patch}}) against the
+     * entity's previous version, or the envelope with its {@code version} when there is nothing to
+     * diff against or the patch is no smaller.
+     */
+    public String toDelta(String type, String envelope) {
+        JsonPointer keyPointer = keyPointerFor(type);
+        if (keyPointer == null) {
+            return envelope;
+        }
+        try {
+            JsonNode root = objectMapper.readTree(envelope);
+            JsonNode data = root.get("data");
+            JsonNode key = data != null ? data.at(keyPointer) : null;
+            if (!"success".equals(root.path("status").asText()) || key == null || !key.isValueNode()) {
+                return full(envelope);
+            }
+
+            String current = objectMapper.writeValueAsString(data);
+            Version[] previous = new Version[1];
+            Version version = store.asMap().compute(type + ':' + key.asText(), (entity, last) -> {
+                previous[0] = last;
+                return new Version(last != null ? last.number + 1 : 1, current);
+            });
+
+            ObjectNode message = (ObjectNode) root;
+            message.put("version", version.number);
+            String document = objectMapper.writeValueAsString(message);
+            if (previous[0] == null) {
+                return full(document);
+            }
+            ArrayNode patch = JsonDiff.diff(objectMapper.readTree(previous[0].data), data);
+            message.remove("data");
+            message.remove("version");
+            message.set("key", key);
+            message.put("version", version.number);
+            message.put("baseVersion", previous[0].number);
+            message.set("patch", patch);
+            String delta = objectMapper.writeValueAsString(message);
+            if (delta.length() >= document.length()) {
+                return full(document);
+            }
+            patches.increment();
+            documentBytes.add(document.length());
+            publishedBytes.add(delta.length());
+            return delta;
+        } catch (Exception e) {
+            System.err.println("❌ Delta encoding failed for " + type + ": " + e.getMessage());
+            return full(envelope);
+        }
+    }
+
+    public void clear() {
+        store.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("enabled", spiAppProperties.getProcessing().getDelta().isEnabled());
+        result.put("entities", store.estimatedSize());
+        result.put("weightedBytes", store.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+        result.put("maxBytes", spiAppProperties.getProcessing().getDelta().getMaxBytes());
+        result.put("patches", patches.sum());
+        result.put("fullDocuments", fullDocuments.sum());
+        result.put("documentBytes", documentBytes.sum());
+        result.put("publishedBytes", publishedBytes.sum());
+        return result;
+    }
+
+    private String full(String envelope) {
+        fullDocuments.increment();
+        documentBytes.add(envelope.length());
+        publishedBytes.add(envelope.length());
+        return envelope;
+    }
+
+    private JsonPointer keyPointerFor(String type) {
+        if (!spiAppProperties.getProcessing().getDelta().isEnabled() || spiAppProperties.getRouting().getXmlTypes() == null) {
+            return null;
+        }
+        var xmlTypeConfig = spiAppProperties.getRouting().getXmlTypes().get(type);
+        if (xmlTypeConfig == null || xmlTypeConfig.getDeltaKeyPath() == null || xmlTypeConfig.getDeltaKeyPath().isBlank()) {
+            return null;
+        }
+        String keyPath = xmlTypeConfig.getDeltaKeyPath();
+        return keyPointers.computeIfAbsent(keyPath, path -> JsonPointer.compile(path.startsWith("/") ? path : "/" + path));
+    }
+
+    private static final class Version {
+        private final long number;
+        private final String data;
+
+        private Version(long number, String data) {
+            this.number = number;
+            this.data = data;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.util.StreamingXmlJsonConverter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the {type, timestamp, processor, status, data} envelope and the converted payload in one
+ * streaming pass, so the data is never serialized to a String and then copied into the wrapper.
+ * Each thread reuses its own output buffer; buffers that grew past {@link #MAX_RETAINED_BUFFER}
+ * are dropped after use so one huge document doesn't pin memory. Envelopes can be re-encoded in a
+ * binary {@link OutputFormat} (CBOR, Smile) for subscribers that don't need text.
+ */
+@Component
+public class JsonEnvelopeWriter {
+
+    public static final String DEFAULT_PROCESSOR = "XmlTransformationService";
+
+    private static final int MAX_RETAINED_BUFFER = 1 << 20;
+
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializableString PROCESSOR = new SerializedString("processor");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString DATA = new SerializedString("data");
+    private static final SerializableString ERROR = new SerializedString("error");
+    private static final SerializableString SUCCESS = new SerializedString("success");
+    private static final SerializableString FAILED = new SerializedString("error");
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Map<String, Map<String, Template>> templates = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringWriter> buffers = ThreadLocal.withInitial(() -> new StringWriter(1024));
+
+    /**
+     * Returns the registered template for the type, creating it on first use so new xml-types
+     * only need configuration, not a new transformer method.
+     */
+    public Template template(String type, String processor) {
+        return templates.computeIfAbsent(processor, p -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type, t -> new Template(t, processor));
+    }
+
+    public Template template(String type) {
+        return template(type, DEFAULT_PROCESSOR);
+    }
+
+    public String write(Template template, DataWriter data) {
+        return write(template, data, null);
+    }
+
+    /**
+     * Writes the envelope around {@code data}. If the streaming converter hits interleaved repeats
+     * and a {@code fallback} is given, the buffer is discarded and the fallback writes the data instead.
+     * Any other failure produces an error envelope with the message properly escaped.
+     */
+    public String write(Template template, DataWriter data, DataWriter fallback) {
+        StringWriter buffer = buffers.get();
+        buffer.getBuffer().setLength(0);
+        try {
+            writeSuccess(buffer, template, data);
+        } catch (StreamingXmlJsonConverter.NonConsecutiveRepeatException e) {
+            buffer.getBuffer().setLength(0);
+            if (fallback == null) {
+                writeError(buffer, template, e);
+            } else {
+                try {
+                    writeSuccess(buffer, template, fallback);
+                } catch (Exception fallbackError) {
+                    buffer.getBuffer().setLength(0);
+                    writeError(buffer, template, fallbackError);
+                }
+            }
+        } catch (Exception e) {
+            buffer.getBuffer().setLength(0);
+            writeError(buffer, template, e);
+        }
+
+        String result = buffer.toString();
+        if (buffer.getBuffer().capacity() > MAX_RETAINED_BUFFER) {
+            buffers.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Re-encodes a JSON envelope in another format by copying its tokens, without building a tree.
+     */
+    public byte[] transcode(String json, OutputFormat format) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(32, json.length() / 2));
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = format.getFactory().createGenerator(buffer)) {
+            while (parser.nextToken() != null) {
+                generator.copyCurrentStructure(parser);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to transcode envelope to " + format, e);
+        }
+        return buffer.toByteArray();
+    }
+
+    public String writeError(Template template, Exception error) {
+        StringWriter buffer = new StringWriter(128);
+        writeError(buffer, template, error);
+        return buffer.toString();
+    }
+
+    private void writeSuccess(StringWriter buffer, Template template, DataWriter data) throws Exception {
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            writeHeader(generator, template, SUCCESS);
+            generator.writeFieldName(DATA);
+            data.write(generator);
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeError(StringWriter buffer, Template template, Exception error) {
+        try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+            writeHeader(generator, template, FAILED);
+            generator.writeFieldName(ERROR);
+            generator.writeString(String.valueOf(error.getMessage()));
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to write error envelope", e);
+        }
+    }
+
+    private void writeHeader(JsonGenerator generator, Template template, SerializableString status) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(TYPE);
+        generator.writeString(template.type);
+        generator.writeFieldName(TIMESTAMP);
+        generator.writeString(Long.toString(System.currentTimeMillis()));
+        generator.writeFieldName(PROCESSOR);
+        generator.writeString(template.processor);
+        generator.writeFieldName(STATUS);
+        generator.writeString(status);
+    }
+
+    @FunctionalInterface
+    public interface DataWriter {
+        void write(JsonGenerator generator) throws Exception;
+    }
+
+    /**
+     * Per-type envelope constants, pre-encoded once at registration.
+     */
+    public static final class Template {
+
+        private final SerializableString type;
+        private final SerializableString processor;
+
+        private Template(String type, String processor) {
+            this.type = new SerializedString(type);
+            this.processor = new SerializedString(processor);
+        }
+
+        public String getType() { return type.getValue(); }
+        public String getProcessor() { return processor.getValue(); }
+    }
+}
@@ -0,0 +1,258 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.MappedFileInputStream;
+import com.ads.apiseng.util.StreamingXmlJsonConverter;
+import com.ads.apiseng.util.XmlLimits;
+import com.ads.apiseng.util.XmlTypeDetector;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Transforms XML files on disk to JSON files, for bulk loads too large to POST. The input is
+ * memory-mapped ({@link MappedFileInputStream}) and the JSON goes to the output file through a
+ * buffered channel, so neither is ever held on the heap as a whole.
+ *
+ * Batches of a type with a {@code record-element} are written as NDJSON, one envelope per record
+ * (like {@code /api/transform/records}); any other document is converted as a whole to JSON (like
+ * {@code /api/transform}). Output is written to a {@code .part} file and renamed when complete.
+ * Files are only read from {@code processing.file-transform.input-directory}; with {@code watch}
+ * enabled, files matching {@code file-pattern} are transformed as they appear there.
+ */
+@Component
+public class MappedFileTransformer {
+
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    private static final String PART_SUFFIX = ".part";
+
+    private final XmlMapper xmlMapper = new XmlMapper();
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final StreamingXmlJsonConverter streamingConverter = new StreamingXmlJsonConverter(xmlMapper, jsonMapper);
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    @Autowired
+    private XmlRecordSplitter recordSplitter;
+
+    @Autowired
+    private XmlTypeDetector xmlTypeDetector;
+
+    @Autowired
+    private ParallelRecordTransformer parallelRecordTransformer;
+
+    @Autowired
+    private XmlLimits xmlLimits;
+
+    private WatchService watchService;
+
+    @PostConstruct
+    public void init() {
+        // Bulk files are large by design: size and element count are not capped, records are still checked in full
+        xmlLimits.forLargeDocuments().apply(xmlMapper.getFactory().getXMLInputFactory());
+        SpiAppProperties.Processing.FileTransform config = spiAppProperties.getProcessing().getFileTransform();
+        if (!config.isEnabled() || !config.isWatch() || config.getInputDirectory() == null) {
+            return;
+        }
+        try {
+            Path directory = inputDirectory();
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+            Thread watcher = new Thread(() -> watch(directory), "spi-file-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            System.out.println("👀 Watching " + directory + " for " + config.getFilePattern() + " files to transform");
+        } catch (IOException e) {
+            System.err.println("❌ Unable to watch input directory " + config.getInputDirectory() + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return spiAppProperties.getProcessing().getFileTransform().isEnabled();
+    }
+
+    /**
+     * Transforms a file from the input directory. The path is resolved against the input directory
+     * and may not leave it, by .. or through a symbolic link: both are compared as real paths. The
+     * type is detected from the root element when not given.
+     */
+    public Map<String, Object> transform(String file, String type) throws Exception {
+        if (!isEnabled() || spiAppProperties.getProcessing().getFileTransform().getInputDirectory() == null) {
+            throw new IllegalStateException("File transform is disabled or has no input-directory");
+        }
+        Path directory = inputDirectory().toRealPath();
+        Path input;
+        try {
+            input = directory.resolve(file).toRealPath();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Not a file in the input directory: " + file);
+        }
+        if (!input.startsWith(directory) || !Files.isRegularFile(input)) {
+            throw new IllegalArgumentException("Not a file in the input directory: " + file);
+        }
+        return transform(input, type);
+    }
+
+    public Map<String, Object> transform(Path input, String type) throws Exception {
+        long start = System.currentTimeMillis();
+        MappedFileInputStream xml = new MappedFileInputStream(input);
+        XMLStreamReader2 reader;
+        try {
+            reader = recordSplitter.openLargeBatch(xml);
+        } catch (Exception e) {
+            xml.close();
+            throw e;
+        }
+        String rootElement = reader.getLocalName();
+        String xmlType = type != null ? type.toLowerCase() : xmlTypeDetector.detectRoot(rootElement, reader.getNamespaceURI()).toLowerCase();
+        boolean batch = recordSplitter.isBatchRoot(xmlType, rootElement);
+
+        Path output = outputFile(input, batch ? ".ndjson" : ".json");
+        Path part = output.resolveSibling(output.getFileName() + PART_SUFFIX);
+        int records = 0;
+        try {
+            if (batch) {
+                records = writeRecords(xml, reader, xmlType, part);
+                if (records == 0) {
+                    // A root that holds no records is a single document, not an empty batch
+                    Files.deleteIfExists(part);
+                    batch = false;
+                    output = outputFile(input, ".json");
+                    part = output.resolveSibling(output.getFileName() + PART_SUFFIX);
+                    writeDocument(input, part);
+                }
+            } else {
+                reader.close();
+                xml.close();
+                writeDocument(input, part);
+            }
+            Files.move(part, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            Files.deleteIfExists(part);
+            throw e;
+        } finally {
+            xml.close();
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("input", input.toString());
+        result.put("output", output.toString());
+        result.put("type", xmlType);
+        result.put("mode", batch ? "records" : "document");
+        result.put("records", records);
+        result.put("inputBytes", xml.size());
+        result.put("outputBytes", Files.size(output));
+        result.put("durationMs", System.currentTimeMillis() - start);
+        System.out.println("🗂️ Transformed " + input.getFileName() + " (" + xml.size() + " bytes, " + xmlType.toUpperCase()
+            + (batch ? ", " + records + " records" : "") + ") to " + output);
+        return result;
+    }
+
+    private int writeRecords(MappedFileInputStream xml, XMLStreamReader2 reader, String type, Path part) throws Exception {
+        String recordElement = recordSplitter.recordElementFor(type);
+        try (xml; OutputStream out = openOutput(part)) {
+            return parallelRecordTransformer.transformStreaming(reader, type, recordElement, (index, recordJson) -> {
+                out.write(recordJson.getBytes(StandardCharsets.UTF_8));
+                out.write('\n');
+            });
+        }
+    }
+
+    private void writeDocument(Path input, Path part) throws Exception {
+        try (MappedFileInputStream xml = new MappedFileInputStream(input);
+             JsonGenerator generator = jsonMapper.getFactory().createGenerator(openOutput(part), JsonEncoding.UTF8)) {
+            streamingConverter.convert(xml, generator);
+        } catch (StreamingXmlJsonConverter.NonConsecutiveRepeatException e) {
+            // Interleaved repeats need the whole tree; the output is rewritten from the start
+            try (MappedFileInputStream xml = new MappedFileInputStream(input);
+                 JsonGenerator generator = jsonMapper.getFactory().createGenerator(openOutput(part), JsonEncoding.UTF8)) {
+                jsonMapper.writeTree(generator, xmlMapper.readTree(xml));
+            }
+        }
+    }
+
+    private static OutputStream openOutput(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new BufferedOutputStream(Channels.newOutputStream(channel), OUTPUT_BUFFER_SIZE);
+    }
+
+    private Path inputDirectory() {
+        return Path.of(spiAppProperties.getProcessing().getFileTransform().getInputDirectory()).toAbsolutePath().normalize();
+    }
+
+    private Path outputFile(Path input, String extension) throws IOException {
+        String outputDirectory = spiAppProperties.getProcessing().getFileTransform().getOutputDirectory();
+        Path directory = outputDirectory != null ? Path.of(outputDirectory) : input.getParent();
+        Files.createDirectories(directory);
+        String name = input.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return directory.resolve((dot > 0 ? name.substring(0, dot) : name) + extension);
+    }
+
+    // Files should be moved into the directory when complete; a file still being written would be read short
+    private void watch(Path directory) {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher(
+            "glob:" + spiAppProperties.getProcessing().getFileTransform().getFilePattern());
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    System.err.println("⚠️ File watcher overflowed; some files in " + directory + " were not transformed");
+                    continue;
+                }
+                Path name = (Path) event.context();
+                if (matcher.matches(name)) {
+                    try {
+                        transform(name.toString(), null);
+                    } catch (Exception e) {
+                        System.err.println("❌ File transformation failed for " + name + ": " + e.getMessage());
+                    }
+                }
+            }
+            if (!key.reset()) {
+                System.err.println("⚠️ Input directory " + directory + " is no longer accessible; file watcher stopped");
+                return;
+            }
+        }
+    }
+}
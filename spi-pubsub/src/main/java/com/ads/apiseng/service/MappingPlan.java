@@ -0,0 +1,247 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.codehaus.stax2.XMLStreamReader2;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A mapping plan compiled from {@code spi-app.routing.mapping-plans.<name>} into a path trie.
+ *
+ * Paths are relative to the root element, e.g. {@code id}, {@code address/city} or
+ * {@code items/item/@sku}. Extraction walks the document once, descends only into elements that
+ * lie on a configured path (everything else is skipped by the parser without being converted)
+ * and writes the captured values as typed JSON in the declared field order.
+ */
+public final class MappingPlan {
+
+    enum ValueType { STRING, INTEGER, NUMBER, BOOLEAN }
+
+    private final String name;
+    private final SerializableString[] fieldNames;
+    private final ValueType[] valueTypes;
+    private final boolean[] repeated;
+    private final Node root = new Node();
+
+    private MappingPlan(String name, int fieldCount) {
+        this.name = name;
+        this.fieldNames = new SerializableString[fieldCount];
+        this.valueTypes = new ValueType[fieldCount];
+        this.repeated = new boolean[fieldCount];
+    }
+
+    public static MappingPlan compile(String name, SpiAppProperties.Routing.MappingPlanConfig config) {
+        List<SpiAppProperties.Routing.FieldMapping> fields = config.getFields() != null ? config.getFields() : List.of();
+        MappingPlan plan = new MappingPlan(name, fields.size());
+
+        for (int slot = 0; slot < fields.size(); slot++) {
+            SpiAppProperties.Routing.FieldMapping field = fields.get(slot);
+            if (field.getName() == null || field.getPath() == null) {
+                throw new IllegalArgumentException("Mapping plan '" + name + "' field #" + slot + " needs a name and a path");
+            }
+            plan.fieldNames[slot] = new SerializedString(field.getName());
+            plan.valueTypes[slot] = ValueType.valueOf(field.getType().toUpperCase());
+            plan.repeated[slot] = field.isRepeated();
+
+            Node node = plan.root;
+            String[] steps = field.getPath().split("/");
+            for (int i = 0; i < steps.length; i++) {
+                String step = steps[i].trim();
+                if (step.isEmpty()) {
+                    throw new IllegalArgumentException("Mapping plan '" + name + "' has an empty step in path: " + field.getPath());
+                }
+                if (step.startsWith("@")) {
+                    if (i != steps.length - 1) {
+                        throw new IllegalArgumentException("Mapping plan '" + name + "' attribute must be the last step: " + field.getPath());
+                    }
+                    node.attributeSlots = append(node.attributeSlots, step.substring(1), slot);
+                } else {
+                    node = node.children.computeIfAbsent(step, s -> new Node());
+                    if (i == steps.length - 1) {
+                        node.textSlots = node.textSlots == null ? new int[] { slot } : appendSlot(node.textSlots, slot);
+                    }
+                }
+            }
+        }
+        return plan;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Reads the document from {@code reader} and writes the extracted object to {@code generator}.
+     */
+    public void write(XMLStreamReader reader, JsonGenerator generator) throws XMLStreamException, IOException {
+        Object[] values = new Object[fieldNames.length];
+        try {
+            extract(reader, values);
+        } finally {
+            reader.close();
+        }
+
+        generator.writeStartObject();
+        for (int slot = 0; slot < values.length; slot++) {
+            Object value = values[slot];
+            if (value == null) {
+                continue;
+            }
+            generator.writeFieldName(fieldNames[slot]);
+            if (repeated[slot]) {
+                generator.writeStartArray();
+                for (Object item : (List<?>) value) {
+                    writeTyped(generator, valueTypes[slot], (String) item);
+                }
+                generator.writeEndArray();
+            } else {
+                writeTyped(generator, valueTypes[slot], (String) value);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void extract(XMLStreamReader reader, Object[] values) throws XMLStreamException {
+        Node[] stack = new Node[16];
+        // Text per open element, so a captured element's text survives captured children
+        StringBuilder[] texts = new StringBuilder[16];
+        int depth = 0;
+
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                Node node = depth == 0 ? root : stack[depth - 1].children.get(reader.getLocalName());
+                if (node == null) {
+                    skipElement(reader);
+                    continue;
+                }
+                if (node.attributeSlots != null) {
+                    for (int i = 0; i < reader.getAttributeCount(); i++) {
+                        int[] slots = node.attributeSlots.get(reader.getAttributeLocalName(i));
+                        if (slots != null) {
+                            assign(values, slots, reader.getAttributeValue(i));
+                        }
+                    }
+                }
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                    texts = Arrays.copyOf(texts, depth * 2);
+                }
+                if (node.textSlots != null) {
+                    if (texts[depth] == null) {
+                        texts[depth] = new StringBuilder();
+                    }
+                    texts[depth].setLength(0);
+                }
+                stack[depth++] = node;
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE) {
+                if (depth > 0 && stack[depth - 1].textSlots != null) {
+                    texts[depth - 1].append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                Node node = stack[--depth];
+                if (node.textSlots != null) {
+                    assign(values, node.textSlots, texts[depth].toString());
+                }
+                if (depth == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assign(Object[] values, int[] slots, String value) {
+        for (int slot : slots) {
+            if (repeated[slot]) {
+                if (values[slot] == null) {
+                    values[slot] = new ArrayList<String>();
+                }
+                ((List<String>) values[slot]).add(value);
+            } else if (values[slot] == null) {
+                values[slot] = value;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        if (reader instanceof XMLStreamReader2) {
+            ((XMLStreamReader2) reader).skipElement();
+            return;
+        }
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    // Values that don't parse as the declared type are kept as strings rather than dropped
+    private static void writeTyped(JsonGenerator generator, ValueType type, String raw) throws IOException {
+        String value = raw.trim();
+        switch (type) {
+            case INTEGER:
+                try {
+                    generator.writeNumber(Long.parseLong(value));
+                    return;
+                } catch (NumberFormatException e) {
+                    break;
+                }
+            case NUMBER:
+                try {
+                    generator.writeNumber(new BigDecimal(value));
+                    return;
+                } catch (NumberFormatException e) {
+                    break;
+                }
+            case BOOLEAN:
+                if ("true".equals(value) || "1".equals(value)) {
+                    generator.writeBoolean(true);
+                    return;
+                }
+                if ("false".equals(value) || "0".equals(value)) {
+                    generator.writeBoolean(false);
+                    return;
+                }
+                break;
+            default:
+                break;
+        }
+        generator.writeString(raw);
+    }
+
+    private static Map<String, int[]> append(Map<String, int[]> slots, String key, int slot) {
+        Map<String, int[]> result = slots != null ? slots : new HashMap<>();
+        result.merge(key, new int[] { slot }, (existing, added) -> appendSlot(existing, slot));
+        return result;
+    }
+
+    private static int[] appendSlot(int[] slots, int slot) {
+        int[] result = Arrays.copyOf(slots, slots.length + 1);
+        result[slots.length] = slot;
+        return result;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private Map<String, int[]> attributeSlots;
+        private int[] textSlots;
+    }
+}
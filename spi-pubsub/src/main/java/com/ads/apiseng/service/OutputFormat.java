@@ -0,0 +1,69 @@
+package com.ads.apiseng.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Wire formats for transformation results. All of them carry the same token stream, so the
+ * envelope and data look the same to a Jackson reader whichever format was picked.
+ */
+public enum OutputFormat {
+
+    JSON("application/json", new JsonFactory()),
+    CBOR("application/cbor", new CBORFactory()),
+    SMILE("application/x-jackson-smile", new SmileFactory());
+
+    private final String mediaType;
+    private final JsonFactory factory;
+
+    OutputFormat(String mediaType, JsonFactory factory) {
+        this.mediaType = mediaType;
+        this.factory = factory;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public JsonFactory getFactory() {
+        return factory;
+    }
+
+    public boolean isBinary() {
+        return this != JSON;
+    }
+
+    /**
+     * Picks the first binary format listed in the Accept header, otherwise JSON.
+     */
+    public static OutputFormat fromAccept(String accept) {
+        if (accept == null) {
+            return JSON;
+        }
+        for (String range : accept.split(",")) {
+            String mediaType = range.split(";")[0].trim();
+            if (CBOR.mediaType.equalsIgnoreCase(mediaType)) {
+                return CBOR;
+            }
+            if (SMILE.mediaType.equalsIgnoreCase(mediaType)) {
+                return SMILE;
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Resolves a configured format name such as "cbor"; unknown or missing names mean JSON.
+     */
+    public static OutputFormat fromName(String name) {
+        if (name != null) {
+            for (OutputFormat format : values()) {
+                if (format.name().equalsIgnoreCase(name.trim())) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,169 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.XmlRecordScanner;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Transforms the records of a batch document in parallel on a dedicated ForkJoinPool, capped by
+ * {@code spi-app.processing.parallel-records.parallelism}, and hands the results back in document
+ * order.
+ *
+ * In-memory batches are sliced up front by {@link XmlRecordScanner} and the slices are converted
+ * by recursively split fork-join tasks. Streamed batches are split by {@link XmlRecordSplitter} and
+ * keep a bounded window of records in flight, so memory stays proportional to the window.
+ */
+@Component
+public class ParallelRecordTransformer {
+
+    private static final int WINDOW_PER_WORKER = 8;
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    @Autowired
+    private XmlTransformationService transformationService;
+
+    @Autowired
+    private XmlRecordSplitter recordSplitter;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        SpiAppProperties.Processing.ParallelRecords config = spiAppProperties.getProcessing().getParallelRecords();
+        if (!config.isEnabled()) {
+            return;
+        }
+        int parallelism = config.getParallelism() > 0 ? config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(parallelism, pool -> {
+            var worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            worker.setName("spi-records-" + worker.getPoolIndex());
+            return worker;
+        }, null, false);
+        System.out.println("⚡ Parallel record transformation enabled (parallelism " + parallelism + ")");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return pool != null;
+    }
+
+    /**
+     * Transforms every record of an in-memory batch and returns the results in document order,
+     * none if the document has no root element. Batches below {@code min-records} are transformed
+     * on the calling thread.
+     */
+    public List<String> transformAll(String batchXml, String type, String recordElement) throws Exception {
+        int[] bounds = XmlRecordScanner.scan(batchXml, recordElement);
+        String[] records;
+        if (bounds != null) {
+            records = new String[bounds.length / 2];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = batchXml.substring(bounds[2 * i], bounds[2 * i + 1]);
+            }
+        } else {
+            // DOCTYPE, outer namespace declarations or malformed markup: let the parser split it
+            XMLStreamReader2 reader;
+            try {
+                reader = recordSplitter.openBatch(batchXml);
+            } catch (XMLStreamException e) {
+                // No root element, so no records; the caller processes the document as it is
+                return List.of();
+            }
+            List<String> split = new ArrayList<>();
+            recordSplitter.split(reader, recordElement, (index, recordXml) -> split.add(recordXml));
+            records = split.toArray(new String[0]);
+        }
+
+        String[] results = new String[records.length];
+        if (!isEnabled() || records.length < spiAppProperties.getProcessing().getParallelRecords().getMinRecords()) {
+            for (int i = 0; i < records.length; i++) {
+                results[i] = transformationService.transformXmlToJson(records[i], type);
+            }
+        } else {
+            int leafSize = Math.max(1, records.length / (pool.getParallelism() * WINDOW_PER_WORKER));
+            pool.invoke(new TransformRange(records, results, type, 0, records.length, leafSize));
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Splits a streamed batch and transforms its records in parallel, passing each result to
+     * {@code handler} in document order on the calling thread.
+     *
+     * @return the number of records
+     */
+    public int transformStreaming(XMLStreamReader2 reader, String type, String recordElement,
+                                  XmlRecordSplitter.RecordHandler handler) throws Exception {
+        if (!isEnabled()) {
+            return recordSplitter.split(reader, recordElement,
+                (index, recordXml) -> handler.onRecord(index, transformationService.transformXmlToJson(recordXml, type)));
+        }
+        int window = pool.getParallelism() * WINDOW_PER_WORKER;
+        Deque<ForkJoinTask<String>> inFlight = new ArrayDeque<>(window);
+        int[] emitted = {0};
+        int records = recordSplitter.split(reader, recordElement, (index, recordXml) -> {
+            if (inFlight.size() >= window) {
+                handler.onRecord(emitted[0]++, inFlight.removeFirst().join());
+            }
+            inFlight.addLast(pool.submit(() -> transformationService.transformXmlToJson(recordXml, type)));
+        });
+        while (!inFlight.isEmpty()) {
+            handler.onRecord(emitted[0]++, inFlight.removeFirst().join());
+        }
+        return records;
+    }
+
+    private class TransformRange extends RecursiveAction {
+
+        private final String[] records;
+        private final String[] results;
+        private final String type;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        TransformRange(String[] records, String[] results, String type, int from, int to, int leafSize) {
+            this.records = records;
+            this.results = results;
+            this.type = type;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    results[i] = transformationService.transformXmlToJson(records[i], type);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TransformRange(records, results, type, from, middle, leafSize),
+                      new TransformRange(records, results, type, middle, to, leafSize));
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.ads.apiseng.service;
 
+import com.ads.apiseng.config.ProcessingExecutors;
+import com.ads.apiseng.config.SpiAppProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.messaging.Message;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Service
@@ -13,6 +21,32 @@ public class PubSubService {
     private final Map<String, Object> pubSubConfig = new ConcurrentHashMap<>();
     private final Map<String, List<TopicMessage>> topicMessages = new ConcurrentHashMap<>();
     
+    @Autowired(required = false)
+    private SpiAppProperties spiAppProperties;
+    
+    @Autowired(required = false)
+    private JsonEnvelopeWriter envelopeWriter;
+    
+    @Autowired(required = false)
+    private EntityDeltaStore deltaStore;
+    
+    // Virtual mode only: subscribers are notified concurrently, one virtual thread each
+    private SimpleAsyncTaskExecutor fanOutExecutor;
+    
+    @PostConstruct
+    public void init() {
+        if (spiAppProperties != null && ProcessingExecutors.isVirtual(spiAppProperties.getProcessing())) {
+            fanOutExecutor = ProcessingExecutors.virtual("spi-fanout-", ProcessingExecutors.concurrencyLimit(spiAppProperties.getProcessing()));
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (fanOutExecutor != null) {
+            fanOutExecutor.close();
+        }
+    }
+    
     public void publishMessage(String topic, Message<?> message) {
         // Implementation for publishing messages
         System.out.println("Publishing message to topic: " + topic);
@@ -52,13 +86,54 @@ public class PubSubService {
         return topicMessages.getOrDefault(topic, new ArrayList<>());
     }
     
+    /**
+     * Publishes a processed document to the subscribers of its xml-type, if the message broker is enabled.
+     */
+    public void publishResult(String xmlType, String jsonResult) {
+        if (spiAppProperties == null || !spiAppProperties.getPubsub().getMessageBroker().isEnabled()
+                || spiAppProperties.getRouting().getXmlTypes() == null) {
+            return;
+        }
+        var xmlTypeConfig = spiAppProperties.getRouting().getXmlTypes().get(xmlType.toLowerCase());
+        if (xmlTypeConfig != null && xmlTypeConfig.getSubscribers() != null) {
+            publishToSubscribers(xmlType, jsonResult, xmlTypeConfig.getSubscribers());
+        }
+    }
+    
     public void publishToSubscribers(String topic, String content, List<String> subscribers) {
         System.out.println("Publishing to subscribers for topic: " + topic);
         if (subscribers != null) {
-            subscribers.forEach(subscriber -> {
-                System.out.println("Notifying subscriber: " + subscriber + " with content: " + content);
-            });
+            // Types with a delta-key-path send a JSON Patch against the entity's last version
+            String message = deltaStore != null ? deltaStore.toDelta(topic.toLowerCase(), content) : content;
+            // Binary formats are encoded once per message, however many subscribers share them
+            if (fanOutExecutor != null && subscribers.size() > 1) {
+                Map<OutputFormat, byte[]> encoded = new ConcurrentHashMap<>();
+                CompletableFuture.allOf(subscribers.stream()
+                    .map(subscriber -> CompletableFuture.runAsync(() -> notifySubscriber(subscriber, message, encoded), fanOutExecutor))
+                    .toArray(CompletableFuture[]::new)).join();
+            } else {
+                Map<OutputFormat, byte[]> encoded = new EnumMap<>(OutputFormat.class);
+                subscribers.forEach(subscriber -> notifySubscriber(subscriber, message, encoded));
+            }
+        }
+    }
+    
+    private void notifySubscriber(String subscriber, String message, Map<OutputFormat, byte[]> encoded) {
+        OutputFormat format = formatFor(subscriber);
+        if (format.isBinary() && envelopeWriter != null) {
+            byte[] payload = encoded.computeIfAbsent(format, f -> envelopeWriter.transcode(message, f));
+            System.out.println("Notifying subscriber: " + subscriber + " with " + format + " content (" + payload.length + " bytes)");
+        } else {
+            System.out.println("Notifying subscriber: " + subscriber + " with content: " + message);
+        }
+    }
+    
+    private OutputFormat formatFor(String subscriber) {
+        if (spiAppProperties == null || spiAppProperties.getPubsub().getSubscribers() == null) {
+            return OutputFormat.JSON;
         }
+        var subscriberConfig = spiAppProperties.getPubsub().getSubscribers().get(subscriber);
+        return subscriberConfig != null ? OutputFormat.fromName(subscriberConfig.getFormat()) : OutputFormat.JSON;
     }
     
     // Inner class for topic messages
@@ -0,0 +1,214 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.XmlLimits;
+import com.ads.apiseng.util.XmlTypeDetector;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Recipient-list routing for composite documents that carry several types' data, e.g. a customer
+ * and their orders in one envelope.
+ *
+ * The document is parsed once. Every xml-type with an element named after one of its
+ * {@code detection.root-elements} (the root itself or anywhere below it) is a recipient and gets
+ * that section of the tree; the recipients' envelopes are written in parallel from the shared,
+ * read-only tree and returned in type priority order.
+ */
+@Component
+public class RecipientListRouter {
+
+    private static final String PROCESSOR = "RecipientListRouter";
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    @Autowired
+    private XmlTypeDetector xmlTypeDetector;
+
+    @Autowired
+    private JsonEnvelopeWriter envelopeWriter;
+
+    @Autowired(required = false)
+    private XmlLimits xmlLimits;
+
+    private final XmlMapper xmlMapper = new XmlMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        if (xmlLimits != null) {
+            xmlLimits.apply(xmlMapper.getFactory().getXMLInputFactory());
+        }
+        SpiAppProperties.Routing.RecipientList config = spiAppProperties.getRouting().getRecipientList();
+        if (!config.isEnabled()) {
+            return;
+        }
+        int parallelism = config.getParallelism() > 0 ? config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("spi-recipients-"));
+        System.out.println("📬 Recipient-list routing enabled (parallelism " + parallelism + ")");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * True if the payload has sections of two or more types, i.e. elements named after their
+     * {@code detection.root-elements}, so that {@link #route} would find several recipients.
+     * Keywords alone don't make a document composite: an order's {@code <customerId>} or
+     * {@code <item>} matches other types' keywords, but the order still has a single type. The
+     * keyword scan only rules out the documents that can't have two sections.
+     */
+    public boolean isComposite(String xmlPayload) {
+        if (xmlTypeDetector.detectAll(xmlPayload).size() < 2) {
+            return false;
+        }
+        return sectionTypes(xmlPayload, 2).size() >= 2;
+    }
+
+    /**
+     * The types with a section in the document, in document order, reading no further than
+     * needed to find {@code limit} of them. Unparsable documents have none.
+     */
+    Set<String> sectionTypes(String xmlPayload, int limit) {
+        Map<String, String> typesByElement = new HashMap<>();
+        recipientRootElements().forEach((type, rootElements) ->
+            rootElements.forEach(rootElement -> typesByElement.putIfAbsent(rootElement, type)));
+
+        Set<String> types = new LinkedHashSet<>();
+        XMLStreamReader reader = null;
+        try {
+            reader = xmlMapper.getFactory().getXMLInputFactory().createXMLStreamReader(new StringReader(xmlPayload));
+            while (reader.hasNext() && types.size() < limit) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String type = typesByElement.get(reader.getLocalName().toLowerCase());
+                    if (type != null) {
+                        types.add(type);
+                    }
+                }
+            }
+        } catch (XMLStreamException e) {
+            // Not routable as a composite; single-type routing reports the error
+            types.clear();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
+        }
+        return types;
+    }
+
+    /**
+     * Parses the document once and returns each recipient type's envelope, in priority order.
+     * Documents with no recipient section get a single envelope of their detected type.
+     */
+    public Map<String, String> route(String xmlPayload) throws Exception {
+        JsonNode tree = xmlMapper.readTree(xmlPayload);
+        String rootElement = XmlTypeDetector.extractRootElement(xmlPayload);
+        rootElement = rootElement.substring(rootElement.indexOf(':') + 1);
+
+        Map<String, JsonNode> sections = new LinkedHashMap<>();
+        for (Map.Entry<String, List<String>> recipient : recipientRootElements().entrySet()) {
+            JsonNode section = recipient.getValue().contains(rootElement) ? tree : findSection(tree, recipient.getValue());
+            if (section != null) {
+                sections.put(recipient.getKey(), section);
+            }
+        }
+        if (sections.isEmpty()) {
+            sections.put(xmlTypeDetector.detect(xmlPayload).toLowerCase(), tree);
+        }
+
+        Map<String, CompletableFuture<String>> envelopes = new LinkedHashMap<>();
+        sections.forEach((type, section) -> envelopes.put(type, sections.size() == 1 || executor == null
+            ? CompletableFuture.completedFuture(envelope(type, section))
+            : CompletableFuture.supplyAsync(() -> envelope(type, section), executor)));
+
+        Map<String, String> results = new LinkedHashMap<>();
+        for (Map.Entry<String, CompletableFuture<String>> envelope : envelopes.entrySet()) {
+            results.put(envelope.getKey(), envelope.getValue().join());
+        }
+        return results;
+    }
+
+    private String envelope(String type, JsonNode section) {
+        return envelopeWriter.write(envelopeWriter.template(type, PROCESSOR), generator -> objectMapper.writeTree(generator, section));
+    }
+
+    // Lower case root element names per type, in detection priority order
+    private Map<String, List<String>> recipientRootElements() {
+        Map<String, SpiAppProperties.Routing.XmlTypeConfig> xmlTypes = spiAppProperties.getRouting().getXmlTypes();
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        if (xmlTypes == null) {
+            return result;
+        }
+        List<String> types = new ArrayList<>();
+        xmlTypes.forEach((type, config) -> {
+            if (config.isEnabled() && config.getDetection() != null && config.getDetection().getRootElements() != null) {
+                types.add(type);
+            }
+        });
+        types.sort(Comparator.comparingInt(type -> xmlTypes.get(type).getDetection().getPriority()));
+        for (String type : types) {
+            List<String> rootElements = new ArrayList<>();
+            xmlTypes.get(type).getDetection().getRootElements().forEach(root -> rootElements.add(root.toLowerCase()));
+            result.put(type.toLowerCase(), rootElements);
+        }
+        return result;
+    }
+
+    // The shallowest field named after one of the root elements, breadth-first
+    private static JsonNode findSection(JsonNode tree, List<String> rootElements) {
+        Deque<JsonNode> queue = new ArrayDeque<>();
+        queue.add(tree);
+        while (!queue.isEmpty()) {
+            JsonNode node = queue.poll();
+            if (node.isObject()) {
+                for (Map.Entry<String, JsonNode> field : node.properties()) {
+                    if (rootElements.contains(field.getKey().toLowerCase())) {
+                        return field.getValue();
+                    }
+                    queue.add(field.getValue());
+                }
+            } else if (node.isArray()) {
+                node.forEach(queue::add);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.ads.apiseng.service;
+
+/**
+ * Thrown when the content router refuses a message instead of queueing it: over the admission
+ * limit (429 Too Many Requests) or rejected by a saturated executor (503 Service Unavailable).
+ * Either way the caller should retry after {@link #getRetryAfterSeconds()}.
+ */
+public class RouterOverloadedException extends RuntimeException {
+
+    private final int status;
+    private final int retryAfterSeconds;
+
+    public RouterOverloadedException(int status, int retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
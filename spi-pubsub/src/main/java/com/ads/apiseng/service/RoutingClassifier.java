@@ -0,0 +1,191 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.XmlKeyExtractor;
+import com.ads.apiseng.util.XmlLimits;
+import com.ads.apiseng.util.XmlTypeDetector;
+import com.ctc.wstx.stax.WstxInputFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classifies a content router message once, as it is sent: its type, its route, where the router
+ * sends it (recipient list, record splitter or the type's channel) and, for partitioned dispatch,
+ * its partition key. The decision travels with the message in the {@link #HEADER} header, so the
+ * partition function, the router and the record splitter read it instead of detecting again.
+ */
+@Component
+public class RoutingClassifier implements ChannelInterceptor {
+
+    public static final String HEADER = "routing-decision";
+
+    public static final String RECIPIENT_LIST_CHANNEL = "recipientListChannel";
+    public static final String RECORD_SPLITTER_CHANNEL = "recordSplitterChannel";
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    @Autowired
+    private XmlTypeDetector xmlTypeDetector;
+
+    @Autowired
+    private RoutingTable routingTable;
+
+    @Autowired
+    private RecipientListRouter recipientListRouter;
+
+    @Autowired
+    private XmlRecordSplitter recordSplitter;
+
+    @Autowired
+    private XmlLimits xmlLimits;
+
+    private final WstxInputFactory keyInputFactory = new WstxInputFactory();
+
+    // Indexed by type ordinal; null where the type has no key path
+    private XmlKeyExtractor[] keyExtractors = new XmlKeyExtractor[0];
+
+    @PostConstruct
+    public void init() {
+        xmlLimits.apply(keyInputFactory);
+        Map<String, String> keyPaths = spiAppProperties.getChannels().getContentRouter().getKeyPaths();
+        List<String> typeNames = xmlTypeDetector.typeNames();
+        XmlKeyExtractor[] extractors = new XmlKeyExtractor[typeNames.size()];
+        if (keyPaths != null) {
+            keyPaths.forEach((type, path) -> {
+                int ordinal = typeNames.indexOf(type.toUpperCase());
+                if (ordinal >= 0) {
+                    extractors[ordinal] = XmlKeyExtractor.compile(path);
+                }
+            });
+        }
+        keyExtractors = extractors;
+    }
+
+    /**
+     * Attaches the decision to messages sent to the channel this intercepts.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!(message.getPayload() instanceof String)) {
+            return message;
+        }
+        String xmlPayload = (String) message.getPayload();
+        Decision decision = message.getHeaders().get(HEADER, Decision.class);
+        if (decision != null && decision.matches(xmlPayload)) {
+            return message;
+        }
+        return MessageBuilder.fromMessage(message).setHeader(HEADER, classify(xmlPayload)).build();
+    }
+
+    /**
+     * The decision the message carries, or a new one if it carries none for its payload.
+     */
+    public Decision decisionFor(Message<String> message) {
+        Decision decision = message.getHeaders().get(HEADER, Decision.class);
+        return decision != null && decision.matches(message.getPayload()) ? decision : classify(message.getPayload());
+    }
+
+    /**
+     * Detects the type once and derives the rest from the route's precomputed flags: the composite
+     * check runs only with the recipient list on, the batch check only for types split into records,
+     * the key extraction only for partitioned dispatch.
+     */
+    public Decision classify(String xmlPayload) {
+        int ordinal = xmlTypeDetector.detectOrdinal(xmlPayload);
+        String type = xmlTypeDetector.typeName(ordinal);
+        RoutingTable.Route route = routingTable.route(ordinal);
+
+        String target = route.getChannel();
+        if (recipientListRouter.isEnabled() && recipientListRouter.isComposite(xmlPayload)) {
+            target = RECIPIENT_LIST_CHANNEL;
+        } else if (route.getRecordElement() != null && recordSplitter.isBatch(type, xmlPayload)) {
+            target = RECORD_SPLITTER_CHANNEL;
+        }
+
+        String key = null;
+        if (ordinal >= 0 && ordinal < keyExtractors.length && keyExtractors[ordinal] != null
+                && spiAppProperties.getChannels().getContentRouter().isPartitioned()) {
+            String value = extractKey(keyExtractors[ordinal], xmlPayload);
+            key = value != null && !value.isEmpty() ? type + ':' + value : null;
+        }
+        return new Decision(type, route, target, key, xmlPayload);
+    }
+
+    /**
+     * The partition key of a content router message: its type plus the value at the type's key
+     * path. Messages without a key are spread by their id, as they need no ordering.
+     */
+    public Object partitionKey(Message<?> message) {
+        Decision decision = message.getHeaders().get(HEADER, Decision.class);
+        if (decision != null && decision.getKey() != null) {
+            return decision.getKey();
+        }
+        return message.getHeaders().getId();
+    }
+
+    // Reads only up to the key; unparsable here means unparsable in the transformer too, which reports it
+    private String extractKey(XmlKeyExtractor extractor, String xmlPayload) {
+        XMLStreamReader reader = null;
+        try {
+            reader = keyInputFactory.createXMLStreamReader(new StringReader(xmlPayload));
+            return extractor.extract(reader);
+        } catch (Exception e) {
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (Exception ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * An immutable routing decision for one payload, identified by its length and hash so a
+     * decision copied onto a different payload is not trusted.
+     */
+    public static final class Decision {
+
+        private final String type;
+        private final RoutingTable.Route route;
+        private final String target;
+        private final String key;
+        private final int payloadLength;
+        private final int payloadHash;
+
+        Decision(String type, RoutingTable.Route route, String target, String key, String payload) {
+            this.type = type;
+            this.route = route;
+            this.target = target;
+            this.key = key;
+            this.payloadLength = payload != null ? payload.length() : -1;
+            this.payloadHash = payload != null ? payload.hashCode() : 0;
+        }
+
+        public boolean matches(String payload) {
+            return payload != null ? payload.length() == payloadLength && payload.hashCode() == payloadHash : payloadLength < 0;
+        }
+
+        public String getType() { return type; }
+        public RoutingTable.Route getRoute() { return route; }
+        public String getTarget() { return target; }
+        public String getKey() { return key; }
+
+        @Override
+        public String toString() {
+            return type + " -> " + target + (key != null ? " [" + key + "]" : "");
+        }
+    }
+}
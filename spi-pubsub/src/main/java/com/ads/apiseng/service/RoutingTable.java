@@ -0,0 +1,178 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.XmlTypeDetector;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routing decisions precomputed from {@code spi-app.routing.xml-types}: for every type, the channel
+ * it is routed to (its own when enabled and the channel exists, otherwise the generic fallback),
+ * the output channel its results go to and the record element batches are split on.
+ *
+ * The table is immutable and published through a volatile reference; configuration changes build
+ * a new table and swap it in. Routes are indexed by the ordinal {@link XmlTypeDetector#detectOrdinal}
+ * returns, so routing a message is one array read, with no hashing, allocation or locking.
+ */
+@Component
+public class RoutingTable {
+
+    public static final String DEFAULT_CHANNEL = "genericProcessingChannel";
+    public static final String DEFAULT_OUTPUT_CHANNEL = "genericOutputChannel";
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    @Autowired
+    private BeanFactory beanFactory;
+
+    @Autowired
+    private XmlTypeDetector xmlTypeDetector;
+
+    private volatile Snapshot snapshot = new Snapshot(new Route[0], Map.of(), Map.of(),
+        new Route("generic", DEFAULT_CHANNEL, DEFAULT_OUTPUT_CHANNEL, null));
+
+    @PostConstruct
+    public void init() {
+        rebuild();
+    }
+
+    /**
+     * Builds a new table from the current configuration and swaps it in. Returns the number of types.
+     */
+    public synchronized int rebuild() {
+        Map<String, SpiAppProperties.Routing.XmlTypeConfig> xmlTypes = spiAppProperties.getRouting().getXmlTypes();
+        if (xmlTypes == null) {
+            xmlTypes = Map.of();
+        }
+
+        var genericConfig = xmlTypes.get("generic");
+        String fallbackChannel = genericConfig != null && genericConfig.isEnabled() && genericConfig.getChannel() != null
+            ? genericConfig.getChannel() : DEFAULT_CHANNEL;
+        String fallbackOutputChannel = outputChannelFor(fallbackChannel, DEFAULT_OUTPUT_CHANNEL);
+        Route fallback = new Route("generic", fallbackChannel, fallbackOutputChannel, null);
+
+        Map<String, Route> routes = new HashMap<>();
+        Map<String, Route> byType = new LinkedHashMap<>();
+        xmlTypes.forEach((type, config) -> {
+            String typeName = type.toLowerCase();
+            String channel = config.isEnabled() ? channelFor(typeName, config, fallbackChannel) : fallbackChannel;
+            String outputChannel = channel.equals(fallbackChannel) ? fallbackOutputChannel : outputChannelFor(channel, fallbackOutputChannel);
+            Route route = new Route(typeName, channel, outputChannel, config.isEnabled() ? recordElement(config) : null);
+            // Under the lower case config key and the upper case name the detector returns
+            routes.put(typeName, route);
+            routes.put(type.toUpperCase(), route);
+            byType.put(typeName, route);
+        });
+
+        // Aligned with the detector's ordinals
+        List<String> typeNames = xmlTypeDetector.typeNames();
+        Route[] byOrdinal = new Route[typeNames.size()];
+        for (int ordinal = 0; ordinal < byOrdinal.length; ordinal++) {
+            Route route = routes.get(typeNames.get(ordinal));
+            byOrdinal[ordinal] = route != null ? route : fallback;
+        }
+
+        snapshot = new Snapshot(byOrdinal, Map.copyOf(routes), Collections.unmodifiableMap(byType), fallback);
+        System.out.println("🗺️ Routing table built: " + byType.size() + " types, fallback " + fallbackChannel);
+        return byType.size();
+    }
+
+    /**
+     * The route for a detected type ordinal; GENERIC, INVALID and unconfigured types take the fallback.
+     */
+    public Route route(int ordinal) {
+        Snapshot current = snapshot;
+        return ordinal >= 0 && ordinal < current.byOrdinal.length ? current.byOrdinal[ordinal] : current.fallback;
+    }
+
+    /**
+     * The route for a type by name, in either case, for callers that only have the name; unknown
+     * types (GENERIC, INVALID, unconfigured) take the fallback.
+     */
+    public Route route(String type) {
+        Snapshot current = snapshot;
+        Route route = type != null ? current.routes.get(type) : null;
+        return route != null ? route : current.fallback;
+    }
+
+    public Map<String, Object> describe() {
+        Snapshot current = snapshot;
+        Map<String, Object> result = new LinkedHashMap<>();
+        current.byType.forEach((type, route) -> result.put(type, route.getRecordElement() != null
+            ? Map.of("channel", route.getChannel(), "recordElement", route.getRecordElement())
+            : Map.of("channel", route.getChannel())));
+        result.put("fallback", Map.of("channel", current.fallback.getChannel()));
+        return result;
+    }
+
+    // Types configured with a channel nothing declares are processed on the fallback channel
+    private String channelFor(String type, SpiAppProperties.Routing.XmlTypeConfig config, String fallbackChannel) {
+        String channel = config.getChannel();
+        if (channel == null || channel.equals(fallbackChannel)) {
+            return fallbackChannel;
+        }
+        if (!beanFactory.containsBean(channel)) {
+            System.out.println("⚠️ No channel " + channel + " for type " + type.toUpperCase() + ", routed to " + fallbackChannel);
+            return fallbackChannel;
+        }
+        return channel;
+    }
+
+    // Results go to the output channel paired with the processing channel, resolved once here
+    private String outputChannelFor(String channel, String fallbackOutputChannel) {
+        String outputChannel = channel.replace("Processing", "Output");
+        if (outputChannel.equals(channel) || !beanFactory.containsBean(outputChannel)) {
+            return fallbackOutputChannel;
+        }
+        return outputChannel;
+    }
+
+    private static String recordElement(SpiAppProperties.Routing.XmlTypeConfig config) {
+        String recordElement = config.getRecordElement();
+        return recordElement == null || recordElement.isBlank() ? null : recordElement;
+    }
+
+    private static final class Snapshot {
+
+        private final Route[] byOrdinal;
+        private final Map<String, Route> routes;
+        private final Map<String, Route> byType;
+        private final Route fallback;
+
+        Snapshot(Route[] byOrdinal, Map<String, Route> routes, Map<String, Route> byType, Route fallback) {
+            this.byOrdinal = byOrdinal;
+            this.routes = routes;
+            this.byType = byType;
+            this.fallback = fallback;
+        }
+    }
+
+    public static final class Route {
+
+        private final String type;
+        private final String channel;
+        private final String outputChannel;
+        private final String recordElement;
+
+        Route(String type, String channel, String outputChannel, String recordElement) {
+            this.type = type;
+            this.channel = channel;
+            this.outputChannel = outputChannel;
+            this.recordElement = recordElement;
+        }
+
+        public String getType() { return type; }
+        public String getChannel() { return channel; }
+        public String getOutputChannel() { return outputChannel; }
+        public String getRecordElement() { return recordElement; }
+    }
+}
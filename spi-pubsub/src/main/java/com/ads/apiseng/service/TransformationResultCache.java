@@ -0,0 +1,152 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Caches the converted {@code data} section of transformation results, keyed by the xml-type, the
+ * payload length and a 128-bit hash of the payload; the payload itself is not kept, so an entry
+ * costs its data and a fixed-size key. Only the data is cached: the envelope (and so the
+ * timestamp) is written fresh on every hit. Entries are weighed by their size in bytes and evicted
+ * by Caffeine's W-TinyLFU policy once {@code spi-app.processing.result-cache.max-bytes} is reached.
+ */
+@Component
+public class TransformationResultCache {
+
+    // Entry, key and String headers; the data's characters are counted on top
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private Cache<Key, String> cache;
+
+    @PostConstruct
+    public void init() {
+        long maxBytes = spiAppProperties.getProcessing().getResultCache().getMaxBytes();
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, String data) -> (int) Math.min(Integer.MAX_VALUE,
+                    ENTRY_OVERHEAD_BYTES + 2L * data.length()))
+                .recordStats()
+                .build();
+        System.out.println("🗃️ Transformation result cache ready (max " + maxBytes + " bytes)");
+    }
+
+    public boolean isEnabled(String type) {
+        if (!spiAppProperties.getProcessing().getResultCache().isEnabled() || spiAppProperties.getRouting().getXmlTypes() == null) {
+            return false;
+        }
+        var xmlTypeConfig = spiAppProperties.getRouting().getXmlTypes().get(type);
+        return xmlTypeConfig != null && xmlTypeConfig.isCacheResults();
+    }
+
+    public Key key(String type, String xml) {
+        return Key.of(type, xml);
+    }
+
+    /**
+     * Returns a data writer that replays the cached data for the key, or null on a miss.
+     */
+    public JsonEnvelopeWriter.DataWriter lookup(Key key) {
+        String cachedData = cache.getIfPresent(key);
+        if (cachedData == null) {
+            return null;
+        }
+        return generator -> generator.writeRawValue(cachedData);
+    }
+
+    /**
+     * Wraps {@code data} so that what it writes is also stored under the key.
+     */
+    public JsonEnvelopeWriter.DataWriter storing(Key key, JsonEnvelopeWriter.DataWriter data) {
+        return generator -> {
+            StringWriter captured = new StringWriter(256);
+            try (JsonGenerator capture = jsonFactory.createGenerator(captured)) {
+                data.write(capture);
+            }
+            String result = captured.toString();
+            cache.put(key, result);
+            generator.writeRawValue(result);
+        };
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("enabled", spiAppProperties.getProcessing().getResultCache().isEnabled());
+        result.put("entries", cache.estimatedSize());
+        result.put("weightedBytes", cache.policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L));
+        result.put("maxBytes", spiAppProperties.getProcessing().getResultCache().getMaxBytes());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("evictedBytes", stats.evictionWeight());
+        return result;
+    }
+
+    /**
+     * Type plus payload length and two independent 64-bit hashes computed in one pass over the
+     * characters, so a lookup neither encodes nor copies the payload, and the key doesn't hold it.
+     * Two payloads of one type and length share a result only if both hashes collide.
+     */
+    public static final class Key {
+
+        private final String type;
+        private final int length;
+        private final long hash1;
+        private final long hash2;
+
+        Key(String type, int length, long hash1, long hash2) {
+            this.type = type;
+            this.length = length;
+            this.hash1 = hash1;
+            this.hash2 = hash2;
+        }
+
+        static Key of(String type, String payload) {
+            long h1 = 0xcbf29ce484222325L;
+            long h2 = 0x9e3779b97f4a7c15L;
+            for (int i = 0; i < payload.length(); i++) {
+                char c = payload.charAt(i);
+                h1 = (h1 ^ c) * 0x100000001b3L;
+                h2 = Long.rotateLeft(h2 + c * 0xc2b2ae3d27d4eb4fL, 31) * 0x9e3779b97f4a7c15L;
+            }
+            return new Key(type, payload.length(), h1, h2 ^ (h2 >>> 29));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return length == other.length && hash1 == other.hash1 && hash2 == other.hash2 && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash1 ^ (hash1 >>> 32));
+        }
+    }
+}
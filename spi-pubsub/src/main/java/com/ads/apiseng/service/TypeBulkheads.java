@@ -0,0 +1,102 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-type bulkheads: every enabled xml-type with a {@code bulkhead} gets its own bounded
+ * executor, and its processing channel dispatches onto it. A burst of one type then fills that
+ * type's pool and queue, and is rejected by its own policy (abort, failing the send, or
+ * caller-runs), while the other types carry on.
+ * Types without a bulkhead keep a direct channel. Pools are sized when first created, at startup.
+ */
+@Component
+public class TypeBulkheads {
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    private final Map<String, ThreadPoolTaskExecutor> executors = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> rejections = new ConcurrentHashMap<>();
+
+    /**
+     * The processing channel for {@code type}: an executor channel on the type's bulkhead, or a
+     * direct channel when it has none.
+     */
+    public MessageChannel processingChannel(String type) {
+        ThreadPoolTaskExecutor executor = executorFor(type);
+        return executor != null ? new ExecutorChannel(executor) : new DirectChannel();
+    }
+
+    /**
+     * The type's bulkhead executor, or null if the type is disabled or has no bulkhead.
+     */
+    public ThreadPoolTaskExecutor executorFor(String type) {
+        String typeName = type.toLowerCase();
+        Map<String, SpiAppProperties.Routing.XmlTypeConfig> xmlTypes = spiAppProperties.getRouting().getXmlTypes();
+        SpiAppProperties.Routing.XmlTypeConfig config = xmlTypes != null ? xmlTypes.get(typeName) : null;
+        if (config == null || !config.isEnabled() || config.getBulkhead() == null || !config.getBulkhead().isEnabled()) {
+            return null;
+        }
+        return executors.computeIfAbsent(typeName, name -> create(name, config.getBulkhead()));
+    }
+
+    private ThreadPoolTaskExecutor create(String type, SpiAppProperties.Routing.Bulkhead bulkhead) {
+        AtomicLong rejected = rejections.computeIfAbsent(type, name -> new AtomicLong());
+        RejectedExecutionHandler policy = rejectionPolicy(type, bulkhead.getRejectionPolicy());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(bulkhead.getPoolSize());
+        executor.setMaxPoolSize(bulkhead.getPoolSize());
+        executor.setQueueCapacity(bulkhead.getQueueCapacity());
+        executor.setThreadNamePrefix("spi-" + type + "-");
+        executor.setRejectedExecutionHandler((task, pool) -> {
+            rejected.incrementAndGet();
+            policy.rejectedExecution(task, pool);
+        });
+        executor.initialize();
+        System.out.println("🚧 Bulkhead for " + type.toUpperCase() + ": " + bulkhead.getPoolSize() + " threads, queue "
+            + bulkhead.getQueueCapacity() + ", " + bulkhead.getRejectionPolicy());
+        return executor;
+    }
+
+    private static RejectedExecutionHandler rejectionPolicy(String type, String policy) {
+        switch (policy == null ? "abort" : policy.toLowerCase()) {
+            case "abort":
+                return new ThreadPoolExecutor.AbortPolicy();
+            case "caller-runs":
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            default:
+                // No discarding policies: a dropped message must reach the sender or the error channel
+                throw new IllegalArgumentException("Unknown bulkhead rejection-policy for " + type + ": " + policy
+                    + " (abort or caller-runs)");
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        executors.forEach((type, executor) -> stats.put(type, Map.of(
+            "poolSize", executor.getPoolSize(),
+            "active", executor.getActiveCount(),
+            "queueDepth", executor.getQueueSize(),
+            "rejected", rejections.get(type).get())));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+}
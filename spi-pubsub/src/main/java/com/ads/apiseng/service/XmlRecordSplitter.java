@@ -0,0 +1,212 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.XmlLimits;
+import com.ads.apiseng.util.XmlTypeDetector;
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.ctc.wstx.stax.WstxOutputFactory;
+import jakarta.annotation.PostConstruct;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.XMLStreamWriter2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * Splits batch documents such as {@code <orders><order/>...</orders>} into one XML document per
+ * record, using {@code spi-app.routing.xml-types.<type>.record-element} as the repeating element.
+ *
+ * The input is read as a stream and each record is copied out on its own, so memory use is bounded
+ * by the largest record rather than the whole batch. Elements between records (headers, trailers)
+ * are skipped; records are matched at any depth below the root but never inside another record.
+ */
+@Component
+public class XmlRecordSplitter {
+
+    private final WstxInputFactory inputFactory = new WstxInputFactory();
+    private final WstxInputFactory largeInputFactory = new WstxInputFactory();
+    private final WstxOutputFactory outputFactory = new WstxOutputFactory();
+
+    @Autowired(required = false)
+    private SpiAppProperties spiAppProperties;
+
+    @Autowired(required = false)
+    private XmlLimits xmlLimits;
+
+    public XmlRecordSplitter() {
+        // Namespace prefixes declared on the batch root must still resolve in each record
+        outputFactory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+    }
+
+    @PostConstruct
+    public void applyLimits() {
+        XmlLimits limits = xmlLimits != null ? xmlLimits : XmlLimits.NONE;
+        limits.apply(inputFactory);
+        limits.forLargeDocuments().apply(largeInputFactory);
+    }
+
+    /**
+     * Returns the configured record element for the type, or null if the type is not split.
+     */
+    public String recordElementFor(String type) {
+        if (spiAppProperties == null || spiAppProperties.getRouting().getXmlTypes() == null || type == null) {
+            return null;
+        }
+        var xmlTypeConfig = spiAppProperties.getRouting().getXmlTypes().get(type.toLowerCase());
+        if (xmlTypeConfig == null || !xmlTypeConfig.isEnabled()) {
+            return null;
+        }
+        String recordElement = xmlTypeConfig.getRecordElement();
+        return recordElement == null || recordElement.isBlank() ? null : recordElement;
+    }
+
+    /**
+     * True if the document is a batch of the type's records: its root element is not itself a
+     * record and is either one of the type's {@code detection.root-elements} (the batch element,
+     * e.g. {@code orders}) or has record elements below it. Names are compared without prefixes.
+     * A document classified by other means, e.g. {@code <doc type="customer">}, stays one document.
+     */
+    public boolean isBatch(String type, String xml) {
+        String recordElement = recordElementFor(type);
+        XmlTypeDetector.RootElement root = recordElement != null && xml != null ? XmlTypeDetector.readRootElement(xml, xml.length()) : null;
+        if (root == null || recordElement.equalsIgnoreCase(root.getLocalName())) {
+            return false;
+        }
+        return isBatchElement(type, root.getLocalName()) || containsRecord(xml, recordElement);
+    }
+
+    /**
+     * True if the type is split into records and the root element, by local name, is not itself a
+     * record. For documents that can't be looked ahead in; a batch may then turn out to hold no
+     * records, which callers handle as a single document.
+     */
+    public boolean isBatchRoot(String type, String rootElement) {
+        String recordElement = recordElementFor(type);
+        if (recordElement == null || rootElement == null) {
+            return false;
+        }
+        return !recordElement.equalsIgnoreCase(rootElement.substring(rootElement.indexOf(':') + 1));
+    }
+
+    private boolean isBatchElement(String type, String rootElement) {
+        var detection = spiAppProperties.getRouting().getXmlTypes().get(type.toLowerCase()).getDetection();
+        if (detection == null || detection.getRootElements() == null) {
+            return false;
+        }
+        return detection.getRootElements().stream().anyMatch(rootElement::equalsIgnoreCase);
+    }
+
+    // Reads up to the first record element; unparsable documents are left to the transformer to report
+    private boolean containsRecord(String xml, String recordElement) {
+        XMLStreamReader2 reader = null;
+        try {
+            reader = openBatch(xml);
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && recordElement.equals(reader.getLocalName())) {
+                    return true;
+                }
+            }
+        } catch (XMLStreamException e) {
+            return false;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Opens a reader over the batch and positions it on the root element.
+     */
+    public XMLStreamReader2 openBatch(InputStream xml) throws XMLStreamException {
+        return toRoot((XMLStreamReader2) inputFactory.createXMLStreamReader(xml));
+    }
+
+    /**
+     * Like {@link #openBatch(InputStream)} but without the document size and element count limits, for bulk files
+     * whose records are checked one by one as they are transformed.
+     */
+    public XMLStreamReader2 openLargeBatch(InputStream xml) throws XMLStreamException {
+        return toRoot((XMLStreamReader2) largeInputFactory.createXMLStreamReader(xml));
+    }
+
+    public XMLStreamReader2 openBatch(String xml) throws XMLStreamException {
+        return toRoot((XMLStreamReader2) inputFactory.createXMLStreamReader(new StringReader(xml)));
+    }
+
+    // Skips the prolog (declaration, comments, DOCTYPE) up to the root element
+    private static XMLStreamReader2 toRoot(XMLStreamReader2 reader) throws XMLStreamException {
+        while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+            if (!reader.hasNext()) {
+                reader.close();
+                throw new XMLStreamException("Document has no root element");
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Hands every {@code recordElement} below the root to {@code handler} as a standalone XML
+     * document. The reader must be positioned on the root element and is closed afterwards.
+     *
+     * @return the number of records found
+     */
+    public int split(XMLStreamReader2 reader, String recordElement, RecordHandler handler) throws Exception {
+        StringWriter recordBuffer = new StringWriter(1024);
+        int records = 0;
+        int depth = 1;
+        try {
+            while (depth > 0 && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (recordElement.equals(reader.getLocalName())) {
+                        recordBuffer.getBuffer().setLength(0);
+                        copyElement(reader, recordBuffer);
+                        handler.onRecord(records++, recordBuffer.toString());
+                    } else {
+                        depth++;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    depth--;
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return records;
+    }
+
+    // Copies the element the reader is on, up to and including its end tag
+    private void copyElement(XMLStreamReader2 reader, StringWriter target) throws XMLStreamException {
+        XMLStreamWriter2 writer = (XMLStreamWriter2) outputFactory.createXMLStreamWriter(target);
+        int depth = 0;
+        do {
+            int event = reader.getEventType();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+            writer.copyEventFromReader(reader, false);
+            if (depth > 0) {
+                reader.next();
+            }
+        } while (depth > 0);
+        writer.close();
+    }
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        void onRecord(int index, String recordXml) throws Exception;
+    }
+}
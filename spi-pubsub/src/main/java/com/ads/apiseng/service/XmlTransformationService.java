@@ -1,53 +1,135 @@
 package com.ads.apiseng.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.StreamingXmlJsonConverter;
+import com.ads.apiseng.util.XmlLimits;
+import com.ads.apiseng.util.XmlProjection;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Service
 public class XmlTransformationService {
     
     private final XmlMapper xmlMapper = new XmlMapper();
     private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final StreamingXmlJsonConverter streamingConverter = new StreamingXmlJsonConverter(xmlMapper, jsonMapper);
+    private final Map<String, MappingPlan> mappingPlans = new ConcurrentHashMap<>();
+    private final Map<String, XmlProjection> projections = new ConcurrentHashMap<>();
     
-    public String transformCustomerXmlToJson(String xml) {
-        try {
-            JsonNode jsonNode = xmlMapper.readTree(xml);
-            String json = jsonMapper.writeValueAsString(jsonNode);
-            return "{ \"type\": \"customer\", \"timestamp\": \"" + System.currentTimeMillis() + "\", \"data\": " + json + " }";
-        } catch (Exception e) {
-            return "{ \"type\": \"customer\", \"error\": \"" + e.getMessage() + "\" }";
+    @Autowired(required = false)
+    private SpiAppProperties spiAppProperties;
+    
+    @Autowired
+    private JsonEnvelopeWriter envelopeWriter;
+    
+    @Autowired(required = false)
+    private TransformationResultCache resultCache;
+    
+    @Autowired(required = false)
+    private XmlLimits xmlLimits;
+    
+    @PostConstruct
+    public void applyLimits() {
+        if (xmlLimits != null) {
+            xmlLimits.apply(xmlMapper.getFactory().getXMLInputFactory());
         }
     }
     
-    public String transformOrderXmlToJson(String xml) {
-        try {
-            JsonNode jsonNode = xmlMapper.readTree(xml);
-            String json = jsonMapper.writeValueAsString(jsonNode);
-            return "{ \"type\": \"order\", \"timestamp\": \"" + System.currentTimeMillis() + "\", \"data\": " + json + " }";
-        } catch (Exception e) {
-            return "{ \"type\": \"order\", \"error\": \"" + e.getMessage() + "\" }";
+    /**
+     * Compiles the mapping plan referenced by each xml-type's {@code transformer} name, and the
+     * type's {@code projection} if it has one. Types with neither keep the generic conversion.
+     */
+    @PostConstruct
+    public void compileMappingPlans() {
+        mappingPlans.clear();
+        projections.clear();
+        if (resultCache != null) {
+            resultCache.clear();
+        }
+        if (spiAppProperties == null || spiAppProperties.getRouting().getXmlTypes() == null) {
+            return;
         }
+        var planConfigs = spiAppProperties.getRouting().getMappingPlans() != null
+            ? spiAppProperties.getRouting().getMappingPlans() : Map.<String, SpiAppProperties.Routing.MappingPlanConfig>of();
+        spiAppProperties.getRouting().getXmlTypes().forEach((type, config) -> {
+            XmlProjection projection = XmlProjection.compile(config.getProjection());
+            if (projection != null) {
+                projections.put(type, projection);
+                System.out.println("🔍 Compiled projection [" + projection.getSpec() + "] for type: " + type.toUpperCase());
+            }
+            var planConfig = config.getTransformer() != null ? planConfigs.get(config.getTransformer()) : null;
+            if (planConfig != null) {
+                mappingPlans.put(type, MappingPlan.compile(config.getTransformer(), planConfig));
+                System.out.println("🧩 Compiled mapping plan " + config.getTransformer() + " for type: " + type.toUpperCase());
+            }
+        });
+    }
+    
+    public String transformCustomerXmlToJson(String xml) {
+        return transformXmlToJson(xml, "customer");
+    }
+    
+    public String transformOrderXmlToJson(String xml) {
+        return transformXmlToJson(xml, "order");
     }
     
     public String transformProductXmlToJson(String xml) {
-        try {
-            JsonNode jsonNode = xmlMapper.readTree(xml);
-            String json = jsonMapper.writeValueAsString(jsonNode);
-            return "{ \"type\": \"product\", \"timestamp\": \"" + System.currentTimeMillis() + "\", \"data\": " + json + " }";
-        } catch (Exception e) {
-            return "{ \"type\": \"product\", \"error\": \"" + e.getMessage() + "\" }";
-        }
+        return transformXmlToJson(xml, "product");
     }
     
     public String transformGenericXmlToJson(String xml) {
-        try {
-            JsonNode jsonNode = xmlMapper.readTree(xml);
-            String json = jsonMapper.writeValueAsString(jsonNode);
-            return "{ \"type\": \"generic\", \"timestamp\": \"" + System.currentTimeMillis() + "\", \"data\": " + json + " }";
-        } catch (Exception e) {
-            return "{ \"type\": \"generic\", \"error\": \"" + e.getMessage() + "\" }";
+        return transformXmlToJson(xml, "generic");
+    }
+    
+    public String transformXmlToJson(String xml, String type) {
+        return transformXmlToJson(xml, type, JsonEnvelopeWriter.DEFAULT_PROCESSOR);
+    }
+    
+    public String transformXmlToJson(String xml, String type, String processor) {
+        JsonEnvelopeWriter.Template template = envelopeWriter.template(type, processor);
+        JsonEnvelopeWriter.DataWriter data;
+        JsonEnvelopeWriter.DataWriter fallback = null;
+        
+        MappingPlan plan = mappingPlans.get(type);
+        XmlProjection projection = projections.get(type);
+        if (plan != null) {
+            data = generator -> plan.write(
+                xmlMapper.getFactory().getXMLInputFactory().createXMLStreamReader(new StringReader(xml)), generator);
+        } else if (projection != null) {
+            // Projection needs the streaming engine to skip subtrees; the tree is only pruned on fallback
+            data = generator -> streamingConverter.convert(xml, generator, projection);
+            fallback = generator -> jsonMapper.writeTree(generator, projection.apply(xmlMapper.readTree(xml)));
+        } else if (isStreamingEngine(type)) {
+            data = generator -> streamingConverter.convert(xml, generator);
+            fallback = generator -> jsonMapper.writeTree(generator, xmlMapper.readTree(xml));
+        } else {
+            data = generator -> jsonMapper.writeTree(generator, xmlMapper.readTree(xml));
+        }
+        
+        if (resultCache != null && resultCache.isEnabled(type)) {
+            TransformationResultCache.Key key = resultCache.key(type, xml);
+            JsonEnvelopeWriter.DataWriter cachedData = resultCache.lookup(key);
+            if (cachedData != null) {
+                return envelopeWriter.write(template, cachedData);
+            }
+            data = resultCache.storing(key, data);
+            fallback = fallback != null ? resultCache.storing(key, fallback) : null;
+        }
+        return envelopeWriter.write(template, data, fallback);
+    }
+    
+    private boolean isStreamingEngine(String type) {
+        if (spiAppProperties == null || spiAppProperties.getRouting().getXmlTypes() == null) {
+            return false;
         }
+        var xmlTypeConfig = spiAppProperties.getRouting().getXmlTypes().get(type);
+        return xmlTypeConfig != null && "streaming".equalsIgnoreCase(xmlTypeConfig.getEngine());
     }
 }
\ No newline at end of file
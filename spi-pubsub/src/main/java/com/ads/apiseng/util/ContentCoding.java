@@ -0,0 +1,96 @@
+package com.ads.apiseng.util;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP content codings supported on the transform endpoints. Decoding and encoding are both
+ * streaming: bytes are inflated as the parser asks for them and deflated as the generator writes.
+ */
+public enum ContentCoding {
+
+    IDENTITY("identity"),
+    GZIP("gzip"),
+    ZSTD("zstd");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Resolves a Content-Encoding header; a missing header is identity, an unsupported one is null.
+     */
+    public static ContentCoding fromContentEncoding(String contentEncoding) {
+        if (contentEncoding == null || contentEncoding.isBlank()) {
+            return IDENTITY;
+        }
+        String value = contentEncoding.trim();
+        if ("x-gzip".equalsIgnoreCase(value)) {
+            return GZIP;
+        }
+        for (ContentCoding coding : values()) {
+            if (coding.token.equalsIgnoreCase(value)) {
+                return coding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks the response coding from Accept-Encoding, preferring zstd over gzip and skipping q=0.
+     */
+    public static ContentCoding fromAcceptEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return IDENTITY;
+        }
+        boolean gzip = false;
+        for (String range : acceptEncoding.split(",")) {
+            String[] parts = range.split(";");
+            String token = parts[0].trim();
+            if (parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+                continue;
+            }
+            if (ZSTD.token.equalsIgnoreCase(token)) {
+                return ZSTD;
+            }
+            gzip |= GZIP.token.equalsIgnoreCase(token) || "x-gzip".equalsIgnoreCase(token);
+        }
+        return gzip ? GZIP : IDENTITY;
+    }
+
+    public InputStream decode(InputStream input) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(input, BUFFER_SIZE);
+            case ZSTD:
+                return new ZstdInputStream(input);
+            default:
+                return input;
+        }
+    }
+
+    public OutputStream encode(OutputStream output) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(output, BUFFER_SIZE, true);
+            case ZSTD:
+                return new ZstdOutputStream(output);
+            default:
+                return output;
+        }
+    }
+}
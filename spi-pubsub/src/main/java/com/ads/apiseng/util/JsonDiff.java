@@ -0,0 +1,89 @@
+package com.ads.apiseng.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Computes an RFC 6902 JSON Patch that turns one document into another.
+ *
+ * Objects are compared field by field and arrays index by index, so the patch only touches what
+ * changed; elements inserted or removed in the middle of an array show up as replacements of the
+ * following elements rather than as moves. Only add, remove and replace operations are produced.
+ */
+public final class JsonDiff {
+
+    private JsonDiff() {
+    }
+
+    public static ArrayNode diff(JsonNode source, JsonNode target) {
+        ArrayNode patch = JsonNodeFactory.instance.arrayNode();
+        diff(patch, "", source, target);
+        return patch;
+    }
+
+    private static void diff(ArrayNode patch, String path, JsonNode source, JsonNode target) {
+        if (source.equals(target)) {
+            return;
+        }
+        if (source.isObject() && target.isObject()) {
+            diffObjects(patch, path, source, target);
+        } else if (source.isArray() && target.isArray()) {
+            diffArrays(patch, path, source, target);
+        } else {
+            operation(patch, "replace", path).set("value", target);
+        }
+    }
+
+    private static void diffObjects(ArrayNode patch, String path, JsonNode source, JsonNode target) {
+        Iterator<String> names = source.fieldNames();
+        while (names.hasNext()) {
+            String name = names.next();
+            if (!target.has(name)) {
+                operation(patch, "remove", path + "/" + escape(name));
+            }
+        }
+        for (Map.Entry<String, JsonNode> field : target.properties()) {
+            String fieldPath = path + "/" + escape(field.getKey());
+            JsonNode previous = source.get(field.getKey());
+            if (previous == null) {
+                operation(patch, "add", fieldPath).set("value", field.getValue());
+            } else {
+                diff(patch, fieldPath, previous, field.getValue());
+            }
+        }
+    }
+
+    private static void diffArrays(ArrayNode patch, String path, JsonNode source, JsonNode target) {
+        int common = Math.min(source.size(), target.size());
+        for (int i = 0; i < common; i++) {
+            diff(patch, path + "/" + i, source.get(i), target.get(i));
+        }
+        for (int i = common; i < target.size(); i++) {
+            operation(patch, "add", path + "/" + i).set("value", target.get(i));
+        }
+        // Removed from the end so the indexes of the remaining elements don't shift
+        for (int i = source.size() - 1; i >= common; i--) {
+            operation(patch, "remove", path + "/" + i);
+        }
+    }
+
+    private static ObjectNode operation(ArrayNode patch, String op, String path) {
+        ObjectNode operation = patch.addObject();
+        operation.put("op", op);
+        operation.put("path", path);
+        return operation;
+    }
+
+    // JSON Pointer escaping (RFC 6901): '~' first, then '/'
+    private static String escape(String name) {
+        if (name.indexOf('~') < 0 && name.indexOf('/') < 0) {
+            return name;
+        }
+        return name.replace("~", "~0").replace("/", "~1");
+    }
+}
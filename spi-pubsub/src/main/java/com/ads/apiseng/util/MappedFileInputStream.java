@@ -0,0 +1,108 @@
+package com.ads.apiseng.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a file through {@link FileChannel#map} instead of read() calls, so the parser pulls
+ * bytes straight from the OS page cache and the file is never copied onto the heap as a whole.
+ *
+ * A single mapping is limited to 2 GB, so larger files are mapped one region at a time; each
+ * region is dropped when the stream moves past it and unmapped once it is garbage collected.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    private static final long DEFAULT_REGION_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final long regionSize;
+    private long regionStart;
+    private MappedByteBuffer region;
+
+    public MappedFileInputStream(Path file) throws IOException {
+        this(file, DEFAULT_REGION_SIZE);
+    }
+
+    public MappedFileInputStream(Path file, long regionSize) throws IOException {
+        if (regionSize <= 0 || regionSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Region size must be between 1 and " + Integer.MAX_VALUE + ": " + regionSize);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.regionSize = regionSize;
+        this.regionStart = 0;
+        this.region = map(0);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        return region.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureRemaining()) {
+            return -1;
+        }
+        int count = Math.min(length, region.remaining());
+        region.get(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && ensureRemaining()) {
+            int step = (int) Math.min(n - skipped, region.remaining());
+            region.position(region.position() + step);
+            skipped += step;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return region != null ? region.remaining() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+
+    // Moves to the next region once the current one is used up; false at end of file
+    private boolean ensureRemaining() throws IOException {
+        if (region == null) {
+            throw new IOException("Stream closed");
+        }
+        while (!region.hasRemaining()) {
+            long next = regionStart + region.capacity();
+            if (next >= size) {
+                return false;
+            }
+            regionStart = next;
+            region = map(next);
+        }
+        return true;
+    }
+
+    private MappedByteBuffer map(long position) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, size - position));
+    }
+}
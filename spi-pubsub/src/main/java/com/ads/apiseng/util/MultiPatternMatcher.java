@@ -0,0 +1,199 @@
+package com.ads.apiseng.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Aho-Corasick automaton over groups of patterns, where the group index is the priority
+ * (0 is highest). One pass over the text finds the highest-priority group with a pattern occurring
+ * anywhere in it, without lowercasing or otherwise copying the text.
+ *
+ * Matching ignores ASCII case only, which is what {@code String.toLowerCase()} did for these
+ * patterns. The transitions are a dense table over the characters used in the patterns, so a
+ * character costs one table lookup; characters outside the patterns reset to the start state.
+ */
+public final class MultiPatternMatcher {
+
+    private final int[] asciiSymbols = new int[128];
+    private final char[] otherChars;
+    private final int[] otherSymbols;
+    private final int symbolCount;
+    private final int[] transitions;
+    private final int[] rowPriorities;
+    private final int[][] rowGroups;
+    private final int groupCount;
+
+    public MultiPatternMatcher(List<List<String>> patternGroups) {
+        // Symbols: one per distinct (lowercased) pattern character; ASCII upper case shares its lower case symbol
+        Arrays.fill(asciiSymbols, -1);
+        StringBuilder others = new StringBuilder();
+        int symbols = 0;
+        for (List<String> group : patternGroups) {
+            for (String pattern : group) {
+                for (int i = 0; i < pattern.length(); i++) {
+                    char c = lower(pattern.charAt(i));
+                    if (c < 128) {
+                        if (asciiSymbols[c] < 0) {
+                            asciiSymbols[c] = symbols++;
+                            if (c >= 'a' && c <= 'z') {
+                                asciiSymbols[c - 32] = asciiSymbols[c];
+                            }
+                        }
+                    } else if (others.indexOf(String.valueOf(c)) < 0) {
+                        others.append(c);
+                    }
+                }
+            }
+        }
+        otherChars = others.toString().toCharArray();
+        Arrays.sort(otherChars);
+        otherSymbols = new int[otherChars.length];
+        for (int i = 0; i < otherChars.length; i++) {
+            otherSymbols[i] = symbols++;
+        }
+        symbolCount = symbols;
+        groupCount = patternGroups.size();
+
+        // Trie of the patterns, then breadth-first failure links folded into a full transition table
+        List<int[]> trie = new ArrayList<>();
+        List<Integer> output = new ArrayList<>();
+        List<BitSet> outputGroups = new ArrayList<>();
+        trie.add(newRow());
+        output.add(Integer.MAX_VALUE);
+        outputGroups.add(new BitSet());
+        for (int priority = 0; priority < patternGroups.size(); priority++) {
+            for (String pattern : patternGroups.get(priority)) {
+                if (pattern.isEmpty()) {
+                    throw new IllegalArgumentException("Empty pattern in group " + priority);
+                }
+                int state = 0;
+                for (int i = 0; i < pattern.length(); i++) {
+                    int symbol = symbol(pattern.charAt(i));
+                    if (trie.get(state)[symbol] < 0) {
+                        trie.get(state)[symbol] = trie.size();
+                        trie.add(newRow());
+                        output.add(Integer.MAX_VALUE);
+                        outputGroups.add(new BitSet());
+                    }
+                    state = trie.get(state)[symbol];
+                }
+                output.set(state, Math.min(output.get(state), priority));
+                outputGroups.get(state).set(priority);
+            }
+        }
+
+        int states = trie.size();
+        transitions = new int[states * symbolCount];
+        int[] priorities = new int[states];
+        int[] failure = new int[states];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            int next = trie.get(0)[symbol];
+            if (next > 0) {
+                failure[next] = 0;
+                transitions[symbol] = next;
+                queue.add(next);
+            }
+        }
+        priorities[0] = output.get(0);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            priorities[state] = Math.min(output.get(state), priorities[failure[state]]);
+            // Breadth-first, so the failure state's groups are already complete
+            outputGroups.get(state).or(outputGroups.get(failure[state]));
+            for (int symbol = 0; symbol < symbolCount; symbol++) {
+                int next = trie.get(state)[symbol];
+                if (next > 0) {
+                    failure[next] = transitions[failure[state] * symbolCount + symbol];
+                    transitions[state * symbolCount + symbol] = next;
+                    queue.add(next);
+                } else {
+                    transitions[state * symbolCount + symbol] = transitions[failure[state] * symbolCount + symbol];
+                }
+            }
+        }
+        // Store row offsets instead of state numbers, and priorities by row, so the scan loop needs no arithmetic
+        rowPriorities = new int[Math.max(1, transitions.length)];
+        rowGroups = new int[rowPriorities.length][];
+        for (int state = 0; state < states; state++) {
+            rowPriorities[state * symbolCount] = priorities[state];
+            if (!outputGroups.get(state).isEmpty()) {
+                rowGroups[state * symbolCount] = outputGroups.get(state).stream().toArray();
+            }
+        }
+        for (int i = 0; i < transitions.length; i++) {
+            transitions[i] *= symbolCount;
+        }
+    }
+
+    /**
+     * Returns the highest-priority (lowest) group index with a pattern in {@code text}, or -1.
+     * Stops at the first match of group 0, since nothing can outrank it.
+     */
+    public int firstMatch(CharSequence text) {
+        int best = Integer.MAX_VALUE;
+        int row = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            int symbol = c < 128 ? asciiSymbols[c] : otherSymbol(c);
+            row = symbol < 0 ? 0 : transitions[row + symbol];
+            int priority = rowPriorities[row];
+            if (priority < best) {
+                best = priority;
+                if (best == 0) {
+                    break;
+                }
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Returns every group with a pattern in {@code text}, from the same single pass. Stops once
+     * all groups have matched.
+     */
+    public BitSet allMatches(CharSequence text) {
+        BitSet matched = new BitSet(groupCount);
+        int remaining = groupCount;
+        int row = 0;
+        for (int i = 0, length = text.length(); i < length && remaining > 0; i++) {
+            char c = text.charAt(i);
+            int symbol = c < 128 ? asciiSymbols[c] : otherSymbol(c);
+            row = symbol < 0 ? 0 : transitions[row + symbol];
+            int[] groups = rowGroups[row];
+            if (groups != null) {
+                for (int group : groups) {
+                    if (!matched.get(group)) {
+                        matched.set(group);
+                        remaining--;
+                    }
+                }
+            }
+        }
+        return matched;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[symbolCount];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private int symbol(char c) {
+        c = lower(c);
+        return c < 128 ? asciiSymbols[c] : otherSymbol(c);
+    }
+
+    private int otherSymbol(char c) {
+        int index = Arrays.binarySearch(otherChars, c);
+        return index < 0 ? -1 : otherSymbols[index];
+    }
+
+    private static char lower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + 32) : c;
+    }
+}
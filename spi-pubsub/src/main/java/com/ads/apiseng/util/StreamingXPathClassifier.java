@@ -0,0 +1,306 @@
+package com.ads.apiseng.util;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classifies a document with precompiled rules in a subset of XPath, evaluated over StAX events in
+ * a single forward pass:
+ * <ul>
+ *   <li>absolute paths ({@code /doc/body/invoice}), or paths starting with {@code //} that may begin at any depth</li>
+ *   <li>{@code *} for any element name</li>
+ *   <li>namespaces in Clark notation: {@code {urn:x}invoice}, {@code {urn:x}*}; a plain name matches
+ *       that local name in any namespace, {@code {}name} only outside a namespace</li>
+ *   <li>attribute predicates: {@code [@type='invoice']}, {@code [@{urn:x}kind="a"]}, or {@code [@id]} for presence</li>
+ * </ul>
+ * The first element, in document order, that completes a rule decides; when it completes several,
+ * the earliest rule wins. Reading stops at that element, or as soon as no rule can match any more.
+ */
+public final class StreamingXPathClassifier {
+
+    private static final int MAX_STEPS = 255;
+
+    private final Step[][] rules;
+    private final String[] results;
+    private final int[] absoluteStarts;
+    private final int[] anyDepthStarts;
+
+    /**
+     * @param paths   rule paths, in priority order
+     * @param results what {@link #classify} returns for the path at the same index
+     */
+    public StreamingXPathClassifier(List<String> paths, List<String> results) {
+        if (paths.size() != results.size()) {
+            throw new IllegalArgumentException("Expected one result per path");
+        }
+        this.rules = new Step[paths.size()][];
+        this.results = results.toArray(new String[0]);
+        List<Integer> absolute = new ArrayList<>();
+        List<Integer> anyDepth = new ArrayList<>();
+        for (int rule = 0; rule < paths.size(); rule++) {
+            String path = paths.get(rule).trim();
+            boolean isAnyDepth = path.startsWith("//");
+            if (!isAnyDepth && !path.startsWith("/")) {
+                throw new IllegalArgumentException("Path must start with / or //: " + path);
+            }
+            rules[rule] = parseSteps(path, path.substring(isAnyDepth ? 2 : 1));
+            (isAnyDepth ? anyDepth : absolute).add(state(rule, 0));
+        }
+        this.absoluteStarts = absolute.stream().mapToInt(Integer::intValue).toArray();
+        this.anyDepthStarts = anyDepth.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public boolean isEmpty() {
+        return rules.length == 0;
+    }
+
+    /**
+     * Reads {@code reader} until a rule decides and returns that rule's result, or null if no rule
+     * matches. The reader is left where reading stopped.
+     */
+    public String classify(XMLStreamReader reader) throws XMLStreamException {
+        int rule = match(reader);
+        return rule < 0 ? null : results[rule];
+    }
+
+    /**
+     * Same as {@link #classify}, returning the index of the deciding rule, or -1.
+     */
+    public int match(XMLStreamReader reader) throws XMLStreamException {
+        if (rules.length == 0) {
+            return -1;
+        }
+        // Per open element, the (rule, step) states it matched; its children try each rule's next step
+        List<int[]> stack = new ArrayList<>();
+        int liveLevels = 0;
+        int event = reader.getEventType();
+        while (true) {
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                int[] candidates = stack.isEmpty() ? absoluteStarts : advance(stack.get(stack.size() - 1));
+                int[] matched = new int[candidates.length + anyDepthStarts.length];
+                int count = 0;
+                int decided = Integer.MAX_VALUE;
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int state : pass == 0 ? candidates : anyDepthStarts) {
+                        int rule = rule(state);
+                        int step = step(state);
+                        if (rules[rule][step].matches(reader)) {
+                            if (step == rules[rule].length - 1) {
+                                decided = Math.min(decided, rule);
+                            } else {
+                                matched[count++] = state;
+                            }
+                        }
+                    }
+                }
+                if (decided != Integer.MAX_VALUE) {
+                    return decided;
+                }
+                stack.add(count == matched.length ? matched : Arrays.copyOf(matched, count));
+                if (count > 0) {
+                    liveLevels++;
+                } else if (liveLevels == 0 && anyDepthStarts.length == 0) {
+                    // Nothing open can lead to a match, and no rule can start deeper
+                    return -1;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (stack.remove(stack.size() - 1).length > 0) {
+                    liveLevels--;
+                }
+                if (stack.isEmpty()) {
+                    return -1;
+                }
+            } else if (event == XMLStreamConstants.END_DOCUMENT) {
+                return -1;
+            }
+            if (!reader.hasNext()) {
+                return -1;
+            }
+            event = reader.next();
+        }
+    }
+
+    private static int[] advance(int[] states) {
+        int[] next = new int[states.length];
+        for (int i = 0; i < states.length; i++) {
+            next[i] = states[i] + 1;
+        }
+        return next;
+    }
+
+    private static int state(int rule, int step) {
+        return rule << 8 | step;
+    }
+
+    private static int rule(int state) {
+        return state >>> 8;
+    }
+
+    private static int step(int state) {
+        return state & 0xFF;
+    }
+
+    // =================== PATH PARSER ===================
+
+    private static Step[] parseSteps(String path, String steps) {
+        List<Step> result = new ArrayList<>();
+        int start = 0;
+        char quote = 0;
+        int brackets = 0;
+        boolean inNamespace = false;
+        for (int i = 0; i <= steps.length(); i++) {
+            char c = i < steps.length() ? steps.charAt(i) : '/';
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (inNamespace) {
+                inNamespace = c != '}';
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '{') {
+                inNamespace = true;
+            } else if (c == '[') {
+                brackets++;
+            } else if (c == ']') {
+                brackets--;
+            } else if (c == '/' && brackets == 0) {
+                if (i == start) {
+                    throw new IllegalArgumentException("Empty step (only a leading // is supported): " + path);
+                }
+                result.add(parseStep(path, steps.substring(start, i)));
+                start = i + 1;
+            }
+        }
+        if (quote != 0 || brackets != 0 || inNamespace) {
+            throw new IllegalArgumentException("Unterminated quote, [ or { in path: " + path);
+        }
+        if (result.size() > MAX_STEPS) {
+            throw new IllegalArgumentException("Path has more than " + MAX_STEPS + " steps: " + path);
+        }
+        return result.toArray(new Step[0]);
+    }
+
+    private static Step parseStep(String path, String text) {
+        int predicateStart = text.indexOf('[', text.startsWith("{") ? text.indexOf('}') : 0);
+        String[] name = parseName(path, predicateStart < 0 ? text : text.substring(0, predicateStart));
+        List<Predicate> predicates = new ArrayList<>();
+        int i = predicateStart;
+        while (i >= 0 && i < text.length()) {
+            int end = predicateEnd(text, i);
+            if (text.charAt(i) != '[' || end < 0 || i + 1 >= end || text.charAt(i + 1) != '@') {
+                throw new IllegalArgumentException("Only [@attribute] and [@attribute='value'] predicates are supported: " + path);
+            }
+            predicates.add(parsePredicate(path, text.substring(i + 2, end)));
+            i = end + 1;
+        }
+        return new Step(name[0], name[1], predicates.toArray(new Predicate[0]));
+    }
+
+    private static int predicateEnd(String text, int start) {
+        char quote = 0;
+        for (int i = start + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == ']') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Predicate parsePredicate(String path, String text) {
+        int equals = text.indexOf('=', text.startsWith("{") ? text.indexOf('}') : 0);
+        String[] name = parseName(path, equals < 0 ? text.trim() : text.substring(0, equals).trim());
+        if (name[1] == null) {
+            throw new IllegalArgumentException("Attribute predicates need a name: " + path);
+        }
+        String value = null;
+        if (equals >= 0) {
+            value = text.substring(equals + 1).trim();
+            if (value.length() < 2 || (value.charAt(0) != '\'' && value.charAt(0) != '"')
+                    || value.charAt(value.length() - 1) != value.charAt(0)) {
+                throw new IllegalArgumentException("Attribute values must be quoted: " + path);
+            }
+            value = value.substring(1, value.length() - 1);
+        }
+        return new Predicate(name[0], name[1], value);
+    }
+
+    // {namespace, localName}; a null namespace matches any, a null local name (*) any name
+    private static String[] parseName(String path, String text) {
+        String namespace = null;
+        String localName = text;
+        if (text.startsWith("{")) {
+            int close = text.indexOf('}');
+            namespace = text.substring(1, close);
+            localName = text.substring(close + 1);
+        }
+        if (localName.isEmpty() || localName.indexOf(':') >= 0 || localName.indexOf('{') >= 0) {
+            throw new IllegalArgumentException("Invalid name '" + text + "' (use {namespace}name rather than prefixes): " + path);
+        }
+        return new String[] {namespace, "*".equals(localName) ? null : localName};
+    }
+
+    private static boolean matchesName(String namespace, String localName, String actualNamespace, String actualLocalName) {
+        return (localName == null || localName.equals(actualLocalName))
+            && (namespace == null || namespace.equals(actualNamespace == null ? "" : actualNamespace));
+    }
+
+    private static final class Step {
+
+        private final String namespace;
+        private final String localName;
+        private final Predicate[] predicates;
+
+        Step(String namespace, String localName, Predicate[] predicates) {
+            this.namespace = namespace;
+            this.localName = localName;
+            this.predicates = predicates;
+        }
+
+        boolean matches(XMLStreamReader reader) {
+            if (!matchesName(namespace, localName, reader.getNamespaceURI(), reader.getLocalName())) {
+                return false;
+            }
+            for (Predicate predicate : predicates) {
+                if (!predicate.matches(reader)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Predicate {
+
+        private final String namespace;
+        private final String localName;
+        private final String value;
+
+        Predicate(String namespace, String localName, String value) {
+            this.namespace = namespace;
+            this.localName = localName;
+            this.value = value;
+        }
+
+        boolean matches(XMLStreamReader reader) {
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                if (matchesName(namespace, localName, reader.getAttributeNamespace(i), reader.getAttributeLocalName(i))
+                        && (value == null || value.equals(reader.getAttributeValue(i)))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.ads.apiseng.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Converts XML to JSON by reading StAX events and writing straight to a JsonGenerator,
+ * without building a JsonNode tree or an intermediate JSON String.
+ *
+ * Output has the same shape as {@code objectMapper.writeValueAsString(xmlMapper.readTree(xml))}:
+ * the root element becomes the top-level object, attributes and child elements become fields,
+ * repeated names become arrays and text next to attributes or children is written under "".
+ * Only the first element of each run of same-named siblings is buffered (as tokens) until the
+ * next sibling shows whether the field is an array. A name that repeats after a different sibling
+ * cannot be merged without holding the whole parent, so {@link NonConsecutiveRepeatException}
+ * is thrown and callers fall back to the tree conversion.
+ *
+ * With an {@link XmlProjection}, elements outside the projection are skipped token by token:
+ * their events are counted off without creating frames, buffers or text.
+ */
+public class StreamingXmlJsonConverter {
+
+    private final XMLInputFactory inputFactory;
+    private final ObjectMapper objectMapper;
+
+    public StreamingXmlJsonConverter(XmlMapper xmlMapper, ObjectMapper objectMapper) {
+        this.inputFactory = xmlMapper.getFactory().getXMLInputFactory();
+        this.objectMapper = objectMapper;
+    }
+
+    public String convertToString(String xml) throws IOException, XMLStreamException {
+        StringWriter writer = new StringWriter(Math.max(16, xml.length()));
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)) {
+            convert(xml, generator);
+        }
+        return writer.toString();
+    }
+
+    public void convert(String xml, JsonGenerator generator) throws IOException, XMLStreamException {
+        convert(xml, generator, null);
+    }
+
+    public void convert(String xml, JsonGenerator generator, XmlProjection projection) throws IOException, XMLStreamException {
+        convert(inputFactory.createXMLStreamReader(new StringReader(xml)), generator, projection);
+    }
+
+    public void convert(InputStream xmlStream, JsonGenerator generator) throws IOException, XMLStreamException {
+        convert(xmlStream, generator, null);
+    }
+
+    public void convert(InputStream xmlStream, JsonGenerator generator, XmlProjection projection) throws IOException, XMLStreamException {
+        convert(inputFactory.createXMLStreamReader(xmlStream), generator, projection);
+    }
+
+    public void convert(XMLStreamReader reader, JsonGenerator generator) throws IOException, XMLStreamException {
+        convert(reader, generator, null);
+    }
+
+    public void convert(XMLStreamReader reader, JsonGenerator generator, XmlProjection projection) throws IOException, XMLStreamException {
+        try {
+            Session session = newSession(generator, projection);
+            while (reader.hasNext()) {
+                if (session.accept(reader, reader.next())) {
+                    break;
+                }
+            }
+            generator.flush();
+        } finally {
+            reader.close();
+        }
+    }
+
+    public Session newSession(JsonGenerator generator) {
+        return newSession(generator, null);
+    }
+
+    public Session newSession(JsonGenerator generator, XmlProjection projection) {
+        return new Session(generator, objectMapper, projection != null ? projection.getRoot() : null);
+    }
+
+    /**
+     * Conversion state for one document. Events are pushed in one at a time, so the same
+     * session works for pull parsing and for non-blocking parsers that deliver partial input.
+     */
+    public static class Session {
+
+        private final JsonGenerator generator;
+        private final ObjectCodec codec;
+        private final XmlProjection.Node projection;
+        private final List<Frame> frames = new ArrayList<>();
+        private int depth;
+        private int skipDepth;
+
+        private Session(JsonGenerator generator, ObjectCodec codec, XmlProjection.Node projection) {
+            this.generator = generator;
+            this.codec = codec;
+            this.projection = projection;
+        }
+
+        /**
+         * Handles the event the reader is positioned on.
+         *
+         * @return true once the root element has been closed
+         */
+        public boolean accept(XMLStreamReader reader, int eventType) throws IOException {
+            if (skipDepth > 0) {
+                if (eventType == XMLStreamConstants.START_ELEMENT) {
+                    skipDepth++;
+                } else if (eventType == XMLStreamConstants.END_ELEMENT) {
+                    skipDepth--;
+                }
+                return false;
+            }
+            switch (eventType) {
+                case XMLStreamConstants.START_ELEMENT:
+                    startElement(reader);
+                    return false;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (depth > 0 && frames.get(depth - 1).node == null) {
+                        frames.get(depth - 1).appendText(reader);
+                    }
+                    return false;
+                case XMLStreamConstants.END_ELEMENT:
+                    return endElement();
+                default:
+                    return false;
+            }
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        private void startElement(XMLStreamReader reader) throws IOException {
+            JsonGenerator target;
+            XmlProjection.Node node;
+            if (depth == 0) {
+                target = generator;
+                node = projection;
+            } else {
+                Frame parent = frames.get(depth - 1);
+                node = parent.node != null ? parent.node.child(reader.getLocalName()) : null;
+                if (parent.node != null && node == null) {
+                    skipDepth = 1;
+                    return;
+                }
+                parent.startObject();
+                parent.settleText();
+                target = parent.openField(reader.getLocalName());
+            }
+
+            // A fully selected element is converted as is; a partially selected one is always an object
+            Frame frame = push(target, node != null && node.isAll() ? null : node);
+            if (depth == 1 || frame.node != null || reader.getAttributeCount() > 0) {
+                frame.startObject();
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                if (frame.node == null || frame.node.includesAttribute(reader.getAttributeLocalName(i))) {
+                    frame.openField(reader.getAttributeLocalName(i)).writeString(reader.getAttributeValue(i));
+                }
+            }
+        }
+
+        private boolean endElement() throws IOException {
+            if (depth == 0) {
+                return false;
+            }
+            Frame frame = frames.get(--depth);
+            if (frame.objectStarted) {
+                frame.settleText();
+                frame.closeRun();
+                frame.out.writeEndObject();
+            } else {
+                frame.out.writeString(frame.text.toString());
+            }
+            return depth == 0;
+        }
+
+        private Frame push(JsonGenerator out, XmlProjection.Node node) {
+            Frame frame;
+            if (depth < frames.size()) {
+                frame = frames.get(depth);
+            } else {
+                frame = new Frame(codec);
+                frames.add(frame);
+            }
+            frame.reset(out, node);
+            depth++;
+            return frame;
+        }
+    }
+
+    private static final class Frame {
+
+        private final ObjectCodec codec;
+        private final StringBuilder text = new StringBuilder();
+        private final Set<String> closedNames = new HashSet<>();
+        private JsonGenerator out;
+        private XmlProjection.Node node;
+        private boolean objectStarted;
+        private String runName;
+        private TokenBuffer runBuffer;
+        private boolean runIsArray;
+
+        private Frame(ObjectCodec codec) {
+            this.codec = codec;
+        }
+
+        private void reset(JsonGenerator out, XmlProjection.Node node) {
+            this.out = out;
+            this.node = node;
+            this.objectStarted = false;
+            this.text.setLength(0);
+            this.closedNames.clear();
+            this.runName = null;
+            this.runBuffer = null;
+            this.runIsArray = false;
+        }
+
+        private void appendText(XMLStreamReader reader) {
+            text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+        }
+
+        private void startObject() throws IOException {
+            if (!objectStarted) {
+                out.writeStartObject();
+                objectStarted = true;
+            }
+        }
+
+        // Text beside attributes or child elements is kept under "" unless it is only whitespace
+        private void settleText() throws IOException {
+            if (text.length() == 0) {
+                return;
+            }
+            if (!isBlank(text)) {
+                openField("").writeString(text.toString());
+            }
+            text.setLength(0);
+        }
+
+        private JsonGenerator openField(String name) throws IOException {
+            if (name.equals(runName)) {
+                if (!runIsArray) {
+                    out.writeFieldName(name);
+                    out.writeStartArray();
+                    runBuffer.serialize(out);
+                    runBuffer = null;
+                    runIsArray = true;
+                }
+                return out;
+            }
+
+            closeRun();
+            if (closedNames.contains(name)) {
+                throw new NonConsecutiveRepeatException(name);
+            }
+            runName = name;
+            runBuffer = new TokenBuffer(codec, false);
+            return runBuffer;
+        }
+
+        private void closeRun() throws IOException {
+            if (runName == null) {
+                return;
+            }
+            if (runIsArray) {
+                out.writeEndArray();
+            } else {
+                out.writeFieldName(runName);
+                runBuffer.serialize(out);
+            }
+            closedNames.add(runName);
+            runName = null;
+            runBuffer = null;
+            runIsArray = false;
+        }
+
+        private static boolean isBlank(CharSequence value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (!Character.isWhitespace(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public static class NonConsecutiveRepeatException extends IllegalStateException {
+
+        public NonConsecutiveRepeatException(String name) {
+            super("Element '" + name + "' repeats after a different sibling; streaming conversion cannot merge it");
+        }
+    }
+}
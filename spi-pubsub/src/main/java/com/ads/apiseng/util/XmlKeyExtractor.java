@@ -0,0 +1,101 @@
+package com.ads.apiseng.util;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Extracts one value from a document by a path relative to the root element, e.g. {@code id},
+ * {@code customer/id} or {@code items/item/@sku} ({@code @id} alone reads a root attribute).
+ * Reading stops at the first element on the path; elements off the path are only stepped over.
+ */
+public final class XmlKeyExtractor {
+
+    private final String path;
+    private final String[] elements;
+    private final String attribute;
+
+    private XmlKeyExtractor(String path, String[] elements, String attribute) {
+        this.path = path;
+        this.elements = elements;
+        this.attribute = attribute;
+    }
+
+    public static XmlKeyExtractor compile(String path) {
+        String trimmed = path == null ? "" : path.trim();
+        if (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Empty key path");
+        }
+        String[] steps = trimmed.split("/");
+        String attribute = null;
+        int elementCount = steps.length;
+        if (steps[steps.length - 1].startsWith("@")) {
+            attribute = steps[steps.length - 1].substring(1);
+            elementCount--;
+        }
+        String[] elements = new String[elementCount];
+        for (int i = 0; i < elementCount; i++) {
+            if (steps[i].isEmpty() || steps[i].startsWith("@")) {
+                throw new IllegalArgumentException("Invalid key path: " + path);
+            }
+            elements[i] = steps[i];
+        }
+        if (attribute != null && attribute.isEmpty()) {
+            throw new IllegalArgumentException("Invalid key path: " + path);
+        }
+        return new XmlKeyExtractor(path, elements, attribute);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the value at the path (element text trimmed, or the attribute), or null if the first
+     * element on the path doesn't have it or the document has no such element.
+     */
+    public String extract(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+            if (!reader.hasNext()) {
+                return null;
+            }
+            reader.next();
+        }
+        if (elements.length == 0) {
+            return valueOf(reader);
+        }
+
+        // depth is relative to the root (0); matched counts the path steps open at the current position
+        int depth = 0;
+        int matched = 0;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                if (matched == depth - 1 && elements[matched].equals(reader.getLocalName())) {
+                    if (++matched == elements.length) {
+                        return valueOf(reader);
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (matched == depth) {
+                    matched--;
+                }
+                if (--depth < 0) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    private String valueOf(XMLStreamReader reader) throws XMLStreamException {
+        if (attribute != null) {
+            return reader.getAttributeValue(null, attribute);
+        }
+        return reader.getElementText().trim();
+    }
+}
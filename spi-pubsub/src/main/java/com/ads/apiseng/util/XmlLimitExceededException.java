@@ -0,0 +1,23 @@
+package com.ads.apiseng.util;
+
+/**
+ * Thrown when a document breaks one of the {@link XmlLimits}. Size violations map to
+ * 413 Payload Too Large, structural ones (depth, counts, text length) to 422 Unprocessable Entity.
+ */
+public class XmlLimitExceededException extends RuntimeException {
+
+    private final boolean sizeLimit;
+
+    public XmlLimitExceededException(boolean sizeLimit, String message) {
+        super(message);
+        this.sizeLimit = sizeLimit;
+    }
+
+    public boolean isSizeLimit() {
+        return sizeLimit;
+    }
+
+    public int getStatus() {
+        return sizeLimit ? 413 : 422;
+    }
+}
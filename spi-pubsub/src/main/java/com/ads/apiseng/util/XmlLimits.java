@@ -0,0 +1,154 @@
+package com.ads.apiseng.util;
+
+import com.ctc.wstx.api.WstxInputProperties;
+import com.ctc.wstx.stax.WstxInputFactory;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.util.regex.Pattern;
+
+/**
+ * Parser resource limits from {@code spi-app.processing.limits}: document size, element depth,
+ * element count, attributes per element and text-node length.
+ *
+ * Woodstox factories enforce them natively while parsing ({@code P_MAX_*}), so an oversized or
+ * pathological document fails at the first token past the limit. Parsers without those properties
+ * (the Aalto feeder behind {@code /api/transform/async}) check each event with a {@link Tracker}.
+ * DTD processing and external entities are switched off on every factory either way.
+ */
+public final class XmlLimits {
+
+    public static final XmlLimits NONE = new XmlLimits(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+    // Woodstox reports every limit as "<name> limit (<value>) exceeded"
+    private static final Pattern WOODSTOX_LIMIT = Pattern.compile("limit \\(\\d+\\) exceeded", Pattern.CASE_INSENSITIVE);
+    private static final String WOODSTOX_SIZE_LIMIT = "document characters";
+
+    private final long maxBytes;
+    private final int maxDepth;
+    private final long maxElements;
+    private final int maxAttributes;
+    private final int maxTextLength;
+
+    public XmlLimits(long maxBytes, int maxDepth, long maxElements, int maxAttributes, int maxTextLength) {
+        this.maxBytes = maxBytes;
+        this.maxDepth = maxDepth;
+        this.maxElements = maxElements;
+        this.maxAttributes = maxAttributes;
+        this.maxTextLength = maxTextLength;
+    }
+
+    public long getMaxBytes() { return maxBytes; }
+    public int getMaxDepth() { return maxDepth; }
+    public long getMaxElements() { return maxElements; }
+    public int getMaxAttributes() { return maxAttributes; }
+    public int getMaxTextLength() { return maxTextLength; }
+
+    /**
+     * The same depth, attribute and text limits without the ones that grow with the document
+     * (size and element count), for inputs that are large by design.
+     */
+    public XmlLimits forLargeDocuments() {
+        return new XmlLimits(Long.MAX_VALUE, maxDepth, Long.MAX_VALUE, maxAttributes, maxTextLength);
+    }
+
+    public XMLInputFactory apply(XMLInputFactory factory) {
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        if (factory instanceof WstxInputFactory) {
+            // Characters rather than bytes, which is the same for the ASCII markup that dominates XML
+            factory.setProperty(WstxInputProperties.P_MAX_CHARACTERS, maxBytes);
+            factory.setProperty(WstxInputProperties.P_MAX_ELEMENT_DEPTH, maxDepth);
+            factory.setProperty(WstxInputProperties.P_MAX_ELEMENT_COUNT, maxElements);
+            factory.setProperty(WstxInputProperties.P_MAX_ATTRIBUTES_PER_ELEMENT, maxAttributes);
+            factory.setProperty(WstxInputProperties.P_MAX_TEXT_LENGTH, maxTextLength);
+            factory.setProperty(WstxInputProperties.P_MAX_ATTRIBUTE_SIZE, maxTextLength);
+        }
+        return factory;
+    }
+
+    public Tracker tracker() {
+        return new Tracker();
+    }
+
+    /**
+     * Returns the limit violation behind {@code error} (a {@link XmlLimitExceededException} or a
+     * Woodstox limit error anywhere in the cause chain), or null if it failed for another reason.
+     */
+    public static XmlLimitExceededException findViolation(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof XmlLimitExceededException) {
+                return (XmlLimitExceededException) cause;
+            }
+            if (cause instanceof XMLStreamException && cause.getMessage() != null
+                    && WOODSTOX_LIMIT.matcher(cause.getMessage()).find()) {
+                String message = cause.getMessage();
+                return new XmlLimitExceededException(message.contains(WOODSTOX_SIZE_LIMIT), firstLine(message));
+            }
+            if (cause.getCause() == cause) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    private static String firstLine(String message) {
+        int newline = message.indexOf('\n');
+        return newline < 0 ? message : message.substring(0, newline);
+    }
+
+    /**
+     * Checks one document's events and input size against the limits, for parsers that can't
+     * enforce them. Text is measured per node, across the chunks a non-blocking parser splits it into.
+     */
+    public final class Tracker {
+
+        private long bytes;
+        private int depth;
+        private long elements;
+        private long textLength;
+
+        public void onInput(int length) {
+            bytes += length;
+            if (bytes > maxBytes) {
+                throw new XmlLimitExceededException(true, "Maximum document size limit (" + maxBytes + ") exceeded");
+            }
+        }
+
+        public void onEvent(XMLStreamReader reader, int event) {
+            switch (event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    textLength = 0;
+                    if (++depth > maxDepth) {
+                        throw new XmlLimitExceededException(false, "Maximum element depth limit (" + maxDepth + ") exceeded");
+                    }
+                    if (++elements > maxElements) {
+                        throw new XmlLimitExceededException(false, "Maximum element count limit (" + maxElements + ") exceeded");
+                    }
+                    if (reader.getAttributeCount() > maxAttributes) {
+                        throw new XmlLimitExceededException(false, "Maximum attributes per element limit (" + maxAttributes + ") exceeded");
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    textLength = 0;
+                    depth--;
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    textLength += reader.getTextLength();
+                    if (textLength > maxTextLength) {
+                        throw new XmlLimitExceededException(false, "Maximum text length limit (" + maxTextLength + ") exceeded");
+                    }
+                    break;
+                case XMLStreamConstants.DTD:
+                    // This parser has no entity limits, so documents with a DOCTYPE are refused outright
+                    throw new XmlLimitExceededException(false, "DOCTYPE declarations are not allowed");
+                default:
+                    break;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.ads.apiseng.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A projection spec such as {@code orderId, items/item/productId, @id} compiled into a path trie.
+ *
+ * Paths are relative to the root element and separated by "/"; "*" matches any element and a
+ * final "@name" step selects an attribute. A selected element is kept with its whole subtree,
+ * elements on the way to a selection are kept as objects holding only the selected parts, and
+ * everything else is skipped by the converter without being buffered or converted.
+ */
+public final class XmlProjection {
+
+    private final Node root = new Node();
+    private final String spec;
+
+    private XmlProjection(String spec) {
+        this.spec = spec;
+    }
+
+    /**
+     * Compiles a comma-separated spec, or returns null for a blank one (no projection).
+     */
+    public static XmlProjection parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return null;
+        }
+        return compile(List.of(spec.split(",")));
+    }
+
+    public static XmlProjection compile(Collection<String> paths) {
+        if (paths == null || paths.isEmpty()) {
+            return null;
+        }
+        XmlProjection projection = new XmlProjection(String.join(",", paths));
+        for (String path : paths) {
+            projection.add(path.trim());
+        }
+        projection.root.mergeWildcards();
+        return projection;
+    }
+
+    private void add(String path) {
+        if (path.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        String[] steps = path.split("/");
+        for (int i = 0; i < steps.length; i++) {
+            String step = steps[i].trim();
+            if (step.isEmpty()) {
+                throw new IllegalArgumentException("Empty step in projection path: " + path);
+            }
+            if (step.startsWith("@")) {
+                if (i != steps.length - 1) {
+                    throw new IllegalArgumentException("Attribute must be the last step in projection path: " + path);
+                }
+                node.attributes.add(step.substring(1));
+                return;
+            }
+            if (node.all) {
+                return;
+            }
+            if ("*".equals(step)) {
+                node.wildcard = node.wildcard != null ? node.wildcard : new Node();
+                node = node.wildcard;
+            } else {
+                node = node.children.computeIfAbsent(step, s -> new Node());
+            }
+        }
+        node.all = true;
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    /**
+     * Applies the projection to a tree produced by {@code xmlMapper.readTree}, where attributes
+     * and child elements share field names. Used when the streaming converter has to fall back.
+     */
+    public JsonNode apply(JsonNode tree) {
+        return apply(root, tree);
+    }
+
+    private static JsonNode apply(Node node, JsonNode value) {
+        if (node.all) {
+            return value;
+        }
+        if (value.isArray()) {
+            ArrayNode result = JsonNodeFactory.instance.arrayNode();
+            value.forEach(item -> result.add(apply(node, item)));
+            return result;
+        }
+        ObjectNode result = JsonNodeFactory.instance.objectNode();
+        if (!value.isObject()) {
+            return result;
+        }
+        for (Map.Entry<String, JsonNode> field : value.properties()) {
+            Node child = node.child(field.getKey());
+            if (child != null) {
+                result.set(field.getKey(), apply(child, field.getValue()));
+            } else if (node.attributes.contains(field.getKey())) {
+                result.set(field.getKey(), field.getValue());
+            }
+        }
+        return result;
+    }
+
+    public static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private final Set<String> attributes = new HashSet<>();
+        private Node wildcard;
+        private boolean all;
+
+        /**
+         * The node for a child element, or null if the child is not projected. A named child also
+         * holds what the wildcard selects, so paths through {@code a} and through "*" both apply under it.
+         */
+        public Node child(String name) {
+            Node child = children.get(name);
+            return child != null ? child : wildcard;
+        }
+
+        // Folds the wildcard's selections into each named sibling, all the way down
+        private void mergeWildcards() {
+            if (wildcard != null) {
+                children.values().forEach(child -> child.merge(wildcard));
+            }
+            children.values().forEach(Node::mergeWildcards);
+            if (wildcard != null) {
+                wildcard.mergeWildcards();
+            }
+        }
+
+        private void merge(Node other) {
+            all |= other.all;
+            attributes.addAll(other.attributes);
+            other.children.forEach((name, child) -> children.computeIfAbsent(name, n -> new Node()).merge(child));
+            if (other.wildcard != null) {
+                wildcard = wildcard != null ? wildcard : new Node();
+                wildcard.merge(other.wildcard);
+            }
+        }
+
+        public boolean includesAttribute(String name) {
+            return all || attributes.contains(name);
+        }
+
+        /**
+         * True if the element is selected with its whole subtree.
+         */
+        public boolean isAll() {
+            return all;
+        }
+    }
+}
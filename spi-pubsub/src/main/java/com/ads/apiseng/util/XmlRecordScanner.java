@@ -0,0 +1,173 @@
+package com.ads.apiseng.util;
+
+import java.util.Arrays;
+
+/**
+ * Finds the boundaries of record elements in a batch document without parsing it.
+ *
+ * The scan only tracks markup: tags (with quoted attribute values), comments, CDATA sections and
+ * processing instructions. Text and attributes are not decoded, which makes it far cheaper than a
+ * StAX pass, so it can be run up front before records are parsed in parallel. Each record slice is
+ * a standalone document as long as it doesn't rely on declarations made outside of it, so the scan
+ * gives up (returns null) when the document has a DOCTYPE or declares namespaces outside records;
+ * it also gives up on unbalanced markup so the caller's parser reports the error.
+ */
+public final class XmlRecordScanner {
+
+    private XmlRecordScanner() {
+    }
+
+    /**
+     * @return record offsets as {@code [start0, end0, start1, end1, ...]} (end exclusive), or null
+     *         if the document can't be sliced safely
+     */
+    public static int[] scan(CharSequence xml, String recordElement) {
+        int[] bounds = new int[64];
+        int count = 0;
+        int depth = 0;
+        int recordStart = -1;
+        int recordDepth = 0;
+        int length = xml.length();
+        int i = 0;
+
+        while (i < length) {
+            if (xml.charAt(i) != '<') {
+                i++;
+                continue;
+            }
+            if (startsWith(xml, i, "<!--")) {
+                i = skipPast(xml, i + 4, "-->");
+            } else if (startsWith(xml, i, "<![CDATA[")) {
+                i = skipPast(xml, i + 9, "]]>");
+            } else if (startsWith(xml, i, "<!")) {
+                // DOCTYPE: entities declared there would not carry over to the record slices
+                return null;
+            } else if (startsWith(xml, i, "<?")) {
+                i = skipPast(xml, i + 2, "?>");
+            } else if (i + 1 < length && xml.charAt(i + 1) == '/') {
+                i = skipPast(xml, i + 2, ">");
+                depth--;
+                if (recordStart >= 0 && depth == recordDepth) {
+                    bounds = add(bounds, count, recordStart, i);
+                    count += 2;
+                    recordStart = -1;
+                }
+            } else {
+                int tagStart = i;
+                int nameEnd = nameEnd(xml, i + 1);
+                int tagEnd = tagEnd(xml, nameEnd);
+                if (tagEnd < 0) {
+                    return null;
+                }
+                boolean selfClosing = xml.charAt(tagEnd - 2) == '/';
+                if (recordStart < 0) {
+                    if (depth >= 1 && isRecord(xml, i + 1, nameEnd, recordElement)) {
+                        if (selfClosing) {
+                            bounds = add(bounds, count, tagStart, tagEnd);
+                            count += 2;
+                        } else {
+                            recordStart = tagStart;
+                            recordDepth = depth;
+                        }
+                    } else if (contains(xml, nameEnd, tagEnd, "xmlns")) {
+                        return null;
+                    }
+                }
+                if (!selfClosing) {
+                    depth++;
+                }
+                i = tagEnd;
+            }
+            if (i < 0 || depth < 0) {
+                return null;
+            }
+        }
+        return depth == 0 && recordStart < 0 ? Arrays.copyOf(bounds, count) : null;
+    }
+
+    private static boolean isRecord(CharSequence xml, int nameStart, int nameEnd, String recordElement) {
+        // Match on the local name so prefixed records (p:order) are found too
+        int localStart = nameStart;
+        for (int j = nameStart; j < nameEnd; j++) {
+            if (xml.charAt(j) == ':') {
+                localStart = j + 1;
+            }
+        }
+        if (nameEnd - localStart != recordElement.length()) {
+            return false;
+        }
+        for (int j = 0; j < recordElement.length(); j++) {
+            if (xml.charAt(localStart + j) != recordElement.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int nameEnd(CharSequence xml, int i) {
+        while (i < xml.length()) {
+            char c = xml.charAt(i);
+            if (c == '>' || c == '/' || Character.isWhitespace(c)) {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    // Position just after the '>' closing the tag, skipping '>' inside quoted attribute values
+    private static int tagEnd(CharSequence xml, int i) {
+        char quote = 0;
+        while (i < xml.length()) {
+            char c = xml.charAt(i++);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipPast(CharSequence xml, int from, String terminator) {
+        int limit = xml.length() - terminator.length();
+        for (int i = from; i <= limit; i++) {
+            if (startsWith(xml, i, terminator)) {
+                return i + terminator.length();
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(CharSequence xml, int offset, String prefix) {
+        if (offset + prefix.length() > xml.length()) {
+            return false;
+        }
+        for (int j = 0; j < prefix.length(); j++) {
+            if (xml.charAt(offset + j) != prefix.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(CharSequence xml, int from, int to, String value) {
+        for (int i = from; i <= to - value.length(); i++) {
+            if (startsWith(xml, i, value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] add(int[] bounds, int count, int start, int end) {
+        int[] result = count + 2 > bounds.length ? Arrays.copyOf(bounds, bounds.length * 2) : bounds;
+        result[count] = start;
+        result[count + 1] = end;
+        return result;
+    }
+}
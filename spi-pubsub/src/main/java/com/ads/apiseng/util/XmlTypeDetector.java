@@ -1,51 +1,265 @@
 package com.ads.apiseng.util;
 
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ctc.wstx.stax.WstxInputFactory;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class XmlTypeDetector {
     
-    public static String detectType(String xmlPayload) {
-        if (xmlPayload == null || xmlPayload.trim().isEmpty()) {
-            return "INVALID";
+    /** Ordinal of documents no type's rules match. */
+    public static final int GENERIC = -1;
+    
+    /** Ordinal of empty and blank documents. */
+    public static final int INVALID = -2;
+    
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+    
+    @Autowired(required = false)
+    private XmlLimits xmlLimits;
+    
+    private final WstxInputFactory inputFactory = new WstxInputFactory();
+    private volatile CompiledRules rules = CompiledRules.EMPTY;
+    
+    @PostConstruct
+    public void init() {
+        (xmlLimits != null ? xmlLimits : XmlLimits.NONE).apply(inputFactory);
+        compile();
+    }
+    
+    /**
+     * Compiles the {@code detection} rules of every enabled xml-type into one keyword matcher, root
+     * element and namespace lookups and one path classifier, and swaps them in. Disabled types are
+     * not detected, so they don't shadow the types after them. Returns the number of types with rules.
+     *
+     * Every configured type, enabled or not, keeps its declaration index as its ordinal, so the
+     * ordinals {@link #detectOrdinal} returns stay valid across recompiles.
+     *
+     * @throws IllegalArgumentException if a rule doesn't compile; the current rules stay in place
+     */
+    public synchronized int compile() {
+        Map<String, SpiAppProperties.Routing.XmlTypeConfig> xmlTypes = spiAppProperties.getRouting().getXmlTypes();
+        List<String> typeNames = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        if (xmlTypes != null) {
+            xmlTypes.keySet().forEach(type -> typeNames.add(type.toUpperCase()));
+            xmlTypes.forEach((type, config) -> {
+                if (config.isEnabled() && config.getDetection() != null) {
+                    types.add(type);
+                }
+            });
+            // Stable sort, so types of equal priority keep their declaration order
+            types.sort(Comparator.comparingInt(type -> xmlTypes.get(type).getDetection().getPriority()));
         }
         
-        // Convert to lowercase for case-insensitive matching
-        String xml = xmlPayload.toLowerCase().trim();
-        
-        // Check for customer XML patterns
-        if (xml.contains("<customer") || xml.contains("customer>") || 
-            xml.contains("<cust") || xml.contains("cust>")) {
-            return "CUSTOMER";
+        List<String> keywordTypes = new ArrayList<>();
+        List<Integer> keywordOrdinals = new ArrayList<>();
+        List<List<String>> keywordGroups = new ArrayList<>();
+        Map<String, Integer> rootElements = new HashMap<>();
+        Map<String, Integer> namespaces = new HashMap<>();
+        List<String> paths = new ArrayList<>();
+        List<String> pathTypes = new ArrayList<>();
+        List<Integer> pathOrdinals = new ArrayList<>();
+        for (String type : types) {
+            SpiAppProperties.Routing.DetectionRules detection = xmlTypes.get(type).getDetection();
+            String name = type.toUpperCase();
+            Integer ordinal = typeNames.indexOf(name);
+            if (detection.getKeywords() != null && !detection.getKeywords().isEmpty()) {
+                keywordTypes.add(name);
+                keywordOrdinals.add(ordinal);
+                keywordGroups.add(detection.getKeywords());
+            }
+            if (detection.getRootElements() != null) {
+                detection.getRootElements().forEach(root -> rootElements.putIfAbsent(root.toLowerCase(), ordinal));
+            }
+            if (detection.getNamespaces() != null) {
+                detection.getNamespaces().forEach(namespace -> namespaces.putIfAbsent(namespace, ordinal));
+            }
+            if (detection.getPaths() != null) {
+                detection.getPaths().forEach(path -> {
+                    paths.add(path);
+                    pathTypes.add(name);
+                    pathOrdinals.add(ordinal);
+                });
+            }
         }
         
-        // Check for order XML patterns  
-        if (xml.contains("<order") || xml.contains("order>") ||
-            xml.contains("<ord") || xml.contains("ord>")) {
-            return "ORDER";
+        try {
+            rules = new CompiledRules(typeNames.toArray(new String[0]), toArray(keywordOrdinals), new MultiPatternMatcher(keywordGroups),
+                rootElements, namespaces, new StreamingXPathClassifier(paths, pathTypes), toArray(pathOrdinals));
+        } catch (IllegalArgumentException e) {
+            System.err.println("❌ Invalid detection rules, keeping the previous ones: " + e.getMessage());
+            throw e;
         }
-        
-        // Check for product XML patterns
-        if (xml.contains("<product") || xml.contains("product>") ||
-            xml.contains("<prod") || xml.contains("prod>") ||
-            xml.contains("<item") || xml.contains("item>")) {
-            return "PRODUCT";
+        System.out.println("🧭 Type detection compiled: " + types.size() + " types " + keywordTypes + ", " + paths.size() + " paths");
+        return types.size();
+    }
+    
+    /**
+     * Detects the type as configured by {@code spi-app.routing.detection}. In {@code root} mode only
+     * the document head is read, so the cost doesn't grow with the document; documents whose root
+     * element isn't recognised are scanned in full when {@code body-fallback} is on. {@code xpath}
+     * mode tries the path rules first and continues as {@code root} mode when none of them decides.
+     */
+    public String detect(String xmlPayload) {
+        return typeName(detectOrdinal(xmlPayload));
+    }
+    
+    /**
+     * {@link #detect}, returning the type's ordinal (its index in {@link #typeNames}), {@link #GENERIC}
+     * or {@link #INVALID}; what the routing table is indexed by.
+     */
+    public int detectOrdinal(String xmlPayload) {
+        CompiledRules current = rules;
+        SpiAppProperties.Routing.Detection detection = spiAppProperties.getRouting().getDetection();
+        boolean xpath = "xpath".equalsIgnoreCase(detection.getMode());
+        if (!xpath && !"root".equalsIgnoreCase(detection.getMode())) {
+            return bodyOrdinal(current, xmlPayload);
         }
-        
-        // Check for invoice XML patterns
-        if (xml.contains("<invoice") || xml.contains("invoice>") ||
-            xml.contains("<inv") || xml.contains("inv>")) {
-            return "INVOICE";
+        if (xmlPayload == null || isBlank(xmlPayload)) {
+            return INVALID;
+        }
+        if (xpath) {
+            int ordinal = pathOrdinal(current, xmlPayload);
+            if (ordinal != GENERIC) {
+                return ordinal;
+            }
         }
         
-        // Check for user/employee XML patterns
-        if (xml.contains("<user") || xml.contains("user>") ||
-            xml.contains("<employee") || xml.contains("employee>") ||
-            xml.contains("<person") || xml.contains("person>")) {
-            return "USER";
+        RootElement root = readRootElement(xmlPayload, detection.getHeadChars());
+        int ordinal = root != null ? rootOrdinal(current, root.getLocalName(), root.getNamespaceUri()) : GENERIC;
+        if (ordinal == GENERIC && detection.isBodyFallback()) {
+            return bodyOrdinal(current, xmlPayload);
+        }
+        return ordinal;
+    }
+    
+    /**
+     * Name of the type with this ordinal, upper case as configured, or GENERIC / INVALID.
+     */
+    public String typeName(int ordinal) {
+        if (ordinal == INVALID) {
+            return "INVALID";
+        }
+        String[] typeNames = rules.typeNames;
+        return ordinal >= 0 && ordinal < typeNames.length ? typeNames[ordinal] : "GENERIC";
+    }
+    
+    /**
+     * Every configured type's name, indexed by ordinal.
+     */
+    public List<String> typeNames() {
+        return List.of(rules.typeNames);
+    }
+    
+    /**
+     * Type from the path rules, reading the document only until one of them decides, or null when
+     * none matches (or the document can't be parsed that far).
+     */
+    public String detectPath(String xmlPayload) {
+        int ordinal = pathOrdinal(rules, xmlPayload);
+        return ordinal == GENERIC ? null : typeName(ordinal);
+    }
+    
+    private int pathOrdinal(CompiledRules current, String xmlPayload) {
+        if (current.classifier.isEmpty()) {
+            return GENERIC;
+        }
+        XMLStreamReader reader = null;
+        try {
+            reader = inputFactory.createXMLStreamReader(new StringReader(xmlPayload));
+            int rule = current.classifier.match(reader);
+            return rule < 0 ? GENERIC : current.pathOrdinals[rule];
+        } catch (XMLStreamException e) {
+            return GENERIC;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignored) {
+                }
+            }
+        }
+    }
+    
+    /**
+     * Scans the payload once, case-insensitively and without copying it, for the keywords of every
+     * type at the same time; the matching type with the lowest priority number wins, else GENERIC.
+     */
+    public String detectBody(String xmlPayload) {
+        return typeName(bodyOrdinal(rules, xmlPayload));
+    }
+    
+    private static int bodyOrdinal(CompiledRules current, String xmlPayload) {
+        if (xmlPayload == null || isBlank(xmlPayload)) {
+            return INVALID;
+        }
+        int match = current.matcher.firstMatch(xmlPayload);
+        return match < 0 ? GENERIC : current.keywordOrdinals[match];
+    }
+    
+    /**
+     * Every type whose keywords occur in the payload, in priority order, from one scan; for
+     * documents that carry several types' data.
+     */
+    public List<String> detectAll(String xmlPayload) {
+        if (xmlPayload == null || isBlank(xmlPayload)) {
+            return List.of();
         }
         
-        return "GENERIC";
+        CompiledRules current = rules;
+        List<String> types = new ArrayList<>();
+        current.matcher.allMatches(xmlPayload).stream().forEach(match -> types.add(current.typeNames[current.keywordOrdinals[match]]));
+        return types;
+    }
+    
+    /**
+     * Type of a document from its root element: its namespace, then its local name, then the
+     * keywords applied to the local name.
+     */
+    public String detectRoot(String localName, String namespaceUri) {
+        return typeName(rootOrdinal(rules, localName, namespaceUri));
+    }
+    
+    private static int rootOrdinal(CompiledRules current, String localName, String namespaceUri) {
+        if (namespaceUri != null && !namespaceUri.isEmpty()) {
+            Integer ordinal = current.namespaces.get(namespaceUri);
+            if (ordinal != null) {
+                return ordinal;
+            }
+        }
+        Integer ordinal = current.rootElements.get(localName.toLowerCase());
+        if (ordinal != null) {
+            return ordinal;
+        }
+        int match = current.matcher.firstMatch("<" + localName + ">");
+        return match < 0 ? GENERIC : current.keywordOrdinals[match];
+    }
+    
+    private static int[] toArray(List<Integer> values) {
+        return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    // Same test as trim().isEmpty(), without the copy
+    private static boolean isBlank(String xmlPayload) {
+        for (int i = 0; i < xmlPayload.length(); i++) {
+            if (xmlPayload.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
     }
     
     public static boolean isValidXml(String xmlPayload) {
@@ -58,24 +272,216 @@ public class XmlTypeDetector {
     }
     
     public static String extractRootElement(String xmlPayload) {
-        if (!isValidXml(xmlPayload)) {
+        if (xmlPayload == null) {
             return "unknown";
         }
         
-        String trimmed = xmlPayload.trim();
-        int start = trimmed.indexOf('<') + 1;
-        int end = trimmed.indexOf('>', start);
+        RootElement root = readRootElement(xmlPayload, xmlPayload.length());
+        return root != null ? root.getQualifiedName().toLowerCase() : "unknown";
+    }
+    
+    // =================== ROOT ELEMENT SCANNER ===================
+    
+    /**
+     * Finds the root element within the first {@code maxChars} characters, skipping a byte order
+     * mark, the XML declaration, comments, processing instructions and the DOCTYPE (internal subset
+     * included). The namespace is the one the root tag itself declares for its prefix, if any.
+     * Returns null when there is no root start tag in that range, or other content precedes it.
+     */
+    public static RootElement readRootElement(CharSequence xml, int maxChars) {
+        int limit = Math.min(xml.length(), maxChars);
+        int i = limit > 0 && xml.charAt(0) == '\uFEFF' ? 1 : 0;
+        while (i < limit) {
+            char c = xml.charAt(i);
+            if (c <= ' ') {
+                i++;
+                continue;
+            }
+            if (c != '<' || i + 1 >= limit) {
+                return null;
+            }
+            char next = xml.charAt(i + 1);
+            if (next == '?') {
+                i = skipPast(xml, i + 2, limit, "?>");
+            } else if (next == '!') {
+                i = startsWith(xml, i, limit, "<!--") ? skipPast(xml, i + 4, limit, "-->") : skipDeclaration(xml, i + 2, limit);
+            } else {
+                return readStartTag(xml, i + 1, limit);
+            }
+            if (i < 0) {
+                return null;
+            }
+        }
+        return null;
+    }
+    
+    private static RootElement readStartTag(CharSequence xml, int start, int limit) {
+        int i = start;
+        int colon = -1;
+        while (i < limit && !isTagNameEnd(xml.charAt(i))) {
+            if (xml.charAt(i) == ':' && colon < 0) {
+                colon = i;
+            }
+            i++;
+        }
+        if (i == start || i == limit) {
+            // No name, or the name may continue past the head
+            return null;
+        }
+        String prefix = colon < 0 ? null : xml.subSequence(start, colon).toString();
+        String localName = xml.subSequence(colon < 0 ? start : colon + 1, i).toString();
         
-        if (end > start) {
-            String rootTag = trimmed.substring(start, end);
-            // Remove attributes if any
-            int spaceIndex = rootTag.indexOf(' ');
-            if (spaceIndex > 0) {
-                rootTag = rootTag.substring(0, spaceIndex);
+        // Attributes, for the declaration of the root's own namespace; a tag cut off by the head just has none
+        String namespaceUri = null;
+        while (i < limit) {
+            while (i < limit && xml.charAt(i) <= ' ') {
+                i++;
+            }
+            if (i >= limit || xml.charAt(i) == '>' || xml.charAt(i) == '/') {
+                break;
+            }
+            int nameStart = i;
+            while (i < limit && xml.charAt(i) != '=' && xml.charAt(i) > ' ' && xml.charAt(i) != '>') {
+                i++;
+            }
+            int nameEnd = i;
+            while (i < limit && (xml.charAt(i) <= ' ' || xml.charAt(i) == '=')) {
+                i++;
+            }
+            if (i >= limit || (xml.charAt(i) != '"' && xml.charAt(i) != '\'')) {
+                break;
+            }
+            char quote = xml.charAt(i);
+            int valueStart = ++i;
+            while (i < limit && xml.charAt(i) != quote) {
+                i++;
+            }
+            if (i >= limit) {
+                break;
+            }
+            if (isNamespaceDeclaration(xml, nameStart, nameEnd, prefix)) {
+                namespaceUri = xml.subSequence(valueStart, i).toString();
+            }
+            i++;
+        }
+        return new RootElement(prefix, localName, namespaceUri);
+    }
+    
+    private static boolean isTagNameEnd(char c) {
+        return c <= ' ' || c == '>' || c == '/';
+    }
+    
+    // xmlns="..." for an unprefixed root, xmlns:prefix="..." for a prefixed one
+    private static boolean isNamespaceDeclaration(CharSequence xml, int start, int end, String prefix) {
+        if (!startsWith(xml, start, end, "xmlns")) {
+            return false;
+        }
+        if (prefix == null) {
+            return end - start == 5;
+        }
+        return end - start == 6 + prefix.length() && xml.charAt(start + 5) == ':' && startsWith(xml, start + 6, end, prefix);
+    }
+    
+    // Skips a <!...> declaration such as a DOCTYPE, including a [...] internal subset with quoted strings and comments
+    private static int skipDeclaration(CharSequence xml, int start, int limit) {
+        int depth = 0;
+        for (int i = start; i < limit; i++) {
+            char c = xml.charAt(i);
+            if (c == '"' || c == '\'') {
+                i = indexOf(xml, c, i + 1, limit);
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '<' && startsWith(xml, i, limit, "<!--")) {
+                i = skipPast(xml, i + 4, limit, "-->") - 1;
+                if (i < 0) {
+                    return -1;
+                }
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            } else if (c == '>' && depth <= 0) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+    
+    // Index just past the next occurrence of terminator, or -1 if it isn't within the limit
+    private static int skipPast(CharSequence xml, int start, int limit, String terminator) {
+        for (int i = start; i + terminator.length() <= limit; i++) {
+            if (startsWith(xml, i, limit, terminator)) {
+                return i + terminator.length();
             }
-            return rootTag.toLowerCase();
         }
+        return -1;
+    }
+    
+    private static int indexOf(CharSequence xml, char c, int start, int limit) {
+        for (int i = start; i < limit; i++) {
+            if (xml.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean startsWith(CharSequence xml, int start, int limit, String prefix) {
+        if (start + prefix.length() > limit) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (xml.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public static final class RootElement {
+        
+        private final String prefix;
+        private final String localName;
+        private final String namespaceUri;
+        
+        public RootElement(String prefix, String localName, String namespaceUri) {
+            this.prefix = prefix;
+            this.localName = localName;
+            this.namespaceUri = namespaceUri;
+        }
+        
+        public String getPrefix() { return prefix; }
+        public String getLocalName() { return localName; }
+        public String getNamespaceUri() { return namespaceUri; }
         
-        return "unknown";
+        public String getQualifiedName() {
+            return prefix == null ? localName : prefix + ":" + localName;
+        }
+    }
+    
+    private static final class CompiledRules {
+        
+        static final CompiledRules EMPTY = new CompiledRules(new String[0], new int[0], new MultiPatternMatcher(List.of()), Map.of(), Map.of(),
+            new StreamingXPathClassifier(List.of(), List.of()), new int[0]);
+        
+        final String[] typeNames;
+        final int[] keywordOrdinals;
+        final MultiPatternMatcher matcher;
+        final Map<String, Integer> rootElements;
+        final Map<String, Integer> namespaces;
+        final StreamingXPathClassifier classifier;
+        final int[] pathOrdinals;
+        
+        CompiledRules(String[] typeNames, int[] keywordOrdinals, MultiPatternMatcher matcher, Map<String, Integer> rootElements,
+                      Map<String, Integer> namespaces, StreamingXPathClassifier classifier, int[] pathOrdinals) {
+            this.typeNames = typeNames;
+            this.keywordOrdinals = keywordOrdinals;
+            this.matcher = matcher;
+            this.rootElements = rootElements;
+            this.namespaces = namespaces;
+            this.classifier = classifier;
+            this.pathOrdinals = pathOrdinals;
+        }
     }
 }
\ No newline at end of file
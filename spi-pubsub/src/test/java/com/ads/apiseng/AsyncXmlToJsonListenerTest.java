@@ -0,0 +1,124 @@
+package com.ads.apiseng;
+
+import com.ads.apiseng.util.StreamingXmlJsonConverter;
+import com.ads.apiseng.util.XmlLimits;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncXmlToJsonListenerTest {
+
+    private static final String XML = "<order id=\"7\"><items><item>1</item><item>2</item></items><note>Zoë</note></order>";
+
+    private final XmlMapper xmlMapper = new XmlMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StreamingXmlJsonConverter converter = new StreamingXmlJsonConverter(xmlMapper, objectMapper);
+
+    @Test
+    void convertsADocumentFedInSmallChunks() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        feed(XML, 5, response, XmlLimits.NONE);
+
+        assertThat(objectMapper.readTree(response.getContentAsString(StandardCharsets.UTF_8)))
+            .isEqualTo(objectMapper.readTree(converter.convertToString(XML)));
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void unclosedDocumentsAreRejected() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        feed("<order><id>1</id>", 4, response, XmlLimits.NONE);
+
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentAsString()).contains("root element was not closed");
+    }
+
+    @Test
+    void limitsAbortTheUpload() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        feed("<a><b><c><d>deep</d></c></b></a>", 3, response, new XmlLimits(1024, 2, 100, 8, 100));
+
+        assertThat(response.getStatus()).isEqualTo(422);
+    }
+
+    private void feed(String xml, int chunkSize, MockHttpServletResponse response, XmlLimits limits) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/transform/async");
+        request.setAsyncSupported(true);
+        MockAsyncContext asyncContext = (MockAsyncContext) request.startAsync(request, response);
+        ChunkedInputStream input = new ChunkedInputStream(xml.getBytes(StandardCharsets.UTF_8), chunkSize);
+        AsyncXmlToJsonListener listener = new AsyncXmlToJsonListener(asyncContext, input, response, converter,
+            objectMapper.getFactory(), null, limits);
+        while (input.nextChunk()) {
+            listener.onDataAvailable();
+        }
+        listener.onAllDataRead();
+    }
+
+    // Makes one chunk at a time available, as a container does between onDataAvailable calls
+    private static final class ChunkedInputStream extends ServletInputStream {
+
+        private final Deque<byte[]> chunks = new ArrayDeque<>();
+        private byte[] current = new byte[0];
+        private int position;
+
+        ChunkedInputStream(byte[] data, int chunkSize) {
+            for (int i = 0; i < data.length; i += chunkSize) {
+                chunks.add(Arrays.copyOfRange(data, i, Math.min(data.length, i + chunkSize)));
+            }
+        }
+
+        boolean nextChunk() {
+            if (chunks.isEmpty()) {
+                return false;
+            }
+            current = chunks.poll();
+            position = 0;
+            return true;
+        }
+
+        @Override
+        public int read() {
+            return position < current.length ? current[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position >= current.length) {
+                return chunks.isEmpty() ? -1 : 0;
+            }
+            int count = Math.min(length, current.length - position);
+            System.arraycopy(current, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return chunks.isEmpty() && position >= current.length;
+        }
+
+        @Override
+        public boolean isReady() {
+            return position < current.length;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+        }
+    }
+}
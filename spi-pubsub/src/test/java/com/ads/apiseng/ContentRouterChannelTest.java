@@ -0,0 +1,80 @@
+package com.ads.apiseng;
+
+import com.ads.apiseng.service.RoutingClassifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.integration.channel.PartitionedChannel;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = SpringIntegrationApplication.class, webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    properties = "spi-app.channels.content-router.partitioned=true")
+class ContentRouterChannelTest {
+
+    @Autowired
+    @Qualifier("contentRouterInputChannel")
+    private MessageChannel contentRouterInputChannel;
+
+    @Autowired
+    private RoutingClassifier routingClassifier;
+
+    @Test
+    void contentRouterInputIsPartitioned() {
+        assertThat(contentRouterInputChannel).isInstanceOf(PartitionedChannel.class);
+    }
+
+    @Test
+    void sameKeyRunsInOrderOnOneLane() throws Exception {
+        PartitionedChannel channel = (PartitionedChannel) contentRouterInputChannel;
+        List<String> handled = new CopyOnWriteArrayList<>();
+        List<String> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+        ExecutorChannelInterceptor recorder = new ExecutorChannelInterceptor() {
+            @Override
+            public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+                handled.add((String) message.getPayload());
+                threads.add(Thread.currentThread().getName());
+                return message;
+            }
+
+            @Override
+            public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+                done.countDown();
+            }
+        };
+        channel.addInterceptor(recorder);
+        try {
+            String first = "<order><orderId>42</orderId><status>NEW</status></order>";
+            String second = "<order><orderId>42</orderId><status>PAID</status></order>";
+            channel.send(MessageBuilder.withPayload(first).build());
+            channel.send(MessageBuilder.withPayload(second).build());
+
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(handled).containsExactly(first, second);
+            assertThat(threads.get(0)).startsWith("spi-lane-").isEqualTo(threads.get(1));
+        } finally {
+            channel.removeInterceptor(recorder);
+        }
+    }
+
+    @Test
+    void keyIsTheTypeAndTheValueAtItsKeyPath() {
+        RoutingClassifier.Decision decision = routingClassifier.classify("<order><orderId>42</orderId></order>");
+
+        assertThat(decision.getType()).isEqualTo("ORDER");
+        assertThat(decision.getKey()).isEqualTo("ORDER:42");
+        assertThat(decision.getTarget()).isEqualTo("orderProcessingChannel");
+    }
+}
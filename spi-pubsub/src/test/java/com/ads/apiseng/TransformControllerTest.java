@@ -0,0 +1,46 @@
+package com.ads.apiseng;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = SpringIntegrationApplication.class)
+@AutoConfigureMockMvc
+class TransformControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private XmlToJsonGateway xmlToJsonGateway;
+
+    @Test
+    void failuresWithoutAMessageReportTheirClass() throws Exception {
+        when(xmlToJsonGateway.convertXmlToJson(any(byte[].class), isNull(), any(), isNull())).thenThrow(new IllegalStateException());
+
+        mockMvc.perform(post("/api/transform").contentType(MediaType.APPLICATION_XML).content("<a/>"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("IllegalStateException"));
+    }
+
+    @Test
+    void errorMessagesAreEscaped() throws Exception {
+        String message = "Unexpected \"<\" at C:\\in\nline 2";
+        when(xmlToJsonGateway.convertXmlToJson(any(byte[].class), isNull(), any(), isNull())).thenThrow(new IllegalArgumentException(message));
+
+        mockMvc.perform(post("/api/transform").contentType(MediaType.APPLICATION_XML).content("<a/>"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value(message));
+    }
+}
@@ -0,0 +1,48 @@
+package com.ads.apiseng;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class XmlToJsonTransformerTest {
+
+    private final XmlToJsonTransformer transformer = new XmlToJsonTransformer(new XmlMapper(), new ObjectMapper());
+
+    @Test
+    void bytePathMatchesTheStringPath() {
+        String xml = "<customer id=\"1\"><name>Zoë</name><tags><tag>a</tag><tag>b</tag></tags></customer>";
+
+        byte[] json = transformer.transform(xml.getBytes(StandardCharsets.UTF_8), null, null, null);
+
+        assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo(transformer.transform(xml));
+    }
+
+    @Test
+    void bytesAreDecodedByTheDeclaredEncoding() {
+        String xml = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><name>Zoë</name>";
+
+        byte[] json = transformer.transform(xml.getBytes(StandardCharsets.ISO_8859_1), null, null, null);
+
+        assertThat(new String(json, StandardCharsets.UTF_8)).contains("Zoë");
+    }
+
+    @Test
+    void interleavedRepeatsFallBackToTheTree() {
+        String xml = "<r><a>1</a><b>2</b><a>3</a></r>";
+
+        byte[] json = transformer.transform(xml.getBytes(StandardCharsets.UTF_8), null, null, null);
+
+        assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo(transformer.transform(xml));
+    }
+
+    @Test
+    void malformedXmlIsReported() {
+        assertThatThrownBy(() -> transformer.transform("<a><b></a>".getBytes(StandardCharsets.UTF_8), null, null, null))
+            .hasMessageStartingWith("Error converting XML to JSON");
+    }
+}
@@ -0,0 +1,110 @@
+package com.ads.apiseng.config;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompressionFilterTest {
+
+    private static final String XML = "<customer><id>1</id></customer>";
+
+    private final CompressionFilter filter = new CompressionFilter();
+
+    @Test
+    void matchesTheEndpointsOnPathSegmentBoundaries() {
+        assertThat(CompressionFilter.isUnder("/api/transform", CompressionFilter.TRANSFORM_PATH)).isTrue();
+        assertThat(CompressionFilter.isUnder("/api/transform/customer", CompressionFilter.TRANSFORM_PATH)).isTrue();
+        assertThat(CompressionFilter.isUnder("/api/router/dispatch", CompressionFilter.ROUTER_PATH)).isTrue();
+        assertThat(CompressionFilter.isUnder("/api/transformer", CompressionFilter.TRANSFORM_PATH)).isFalse();
+        assertThat(CompressionFilter.isUnder("/api/routers", CompressionFilter.ROUTER_PATH)).isFalse();
+    }
+
+    @Test
+    void inflatesGzipBodiesOnRouterEndpoints() throws Exception {
+        MockHttpServletRequest request = post("/api/router/dispatch", gzip(XML));
+        request.addHeader("Content-Encoding", "gzip");
+
+        assertThat(filterAndEcho(request, new MockHttpServletResponse())).isEqualTo(XML);
+    }
+
+    @Test
+    void leavesOtherPathsAlone() throws Exception {
+        MockHttpServletRequest request = post("/api/transformer", XML.getBytes(StandardCharsets.UTF_8));
+        request.addHeader("Content-Encoding", "br");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(filterAndEcho(request, response)).isEqualTo(XML);
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void rejectsUnsupportedEncodings() throws Exception {
+        MockHttpServletRequest request = post("/api/router/route-xml", XML.getBytes(StandardCharsets.UTF_8));
+        request.addHeader("Content-Encoding", "br");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertThat(response.getStatus()).isEqualTo(415);
+    }
+
+    @Test
+    void compressesResponsesWhenAccepted() throws Exception {
+        MockHttpServletRequest request = post("/api/router/route-xml", XML.getBytes(StandardCharsets.UTF_8));
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filterAndEcho(request, response);
+
+        assertThat(response.getHeader("Content-Encoding")).isEqualTo("gzip");
+        assertThat(gunzip(response.getContentAsByteArray())).isEqualTo(XML);
+    }
+
+    // Runs the filter in front of a servlet that echoes the body it reads
+    private String filterAndEcho(MockHttpServletRequest request, MockHttpServletResponse response) throws Exception {
+        String[] body = new String[1];
+        HttpServlet echo = new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                body[0] = new String(req.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+                resp.getOutputStream().write(body[0].getBytes(StandardCharsets.UTF_8));
+            }
+        };
+        filter.doFilter(request, response, new MockFilterChain(echo));
+        return body[0];
+    }
+
+    private static MockHttpServletRequest post(String path, byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setContentType("application/xml");
+        request.setContent(body);
+        return request;
+    }
+
+    private static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
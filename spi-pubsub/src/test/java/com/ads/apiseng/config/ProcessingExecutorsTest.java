@@ -0,0 +1,71 @@
+package com.ads.apiseng.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProcessingExecutorsTest {
+
+    @Test
+    void platformModeBuildsTheBoundedPool() {
+        AsyncTaskExecutor executor = ProcessingExecutors.create(processing("platform", 0), "test-");
+
+        assertThat(executor).isInstanceOf(ThreadPoolTaskExecutor.class);
+        ThreadPoolTaskExecutor pool = (ThreadPoolTaskExecutor) executor;
+        assertThat(pool.getCorePoolSize()).isEqualTo(3);
+        assertThat(pool.getMaxPoolSize()).isEqualTo(6);
+        assertThat(pool.getThreadNamePrefix()).isEqualTo("test-");
+        pool.shutdown();
+    }
+
+    @Test
+    void concurrencyLimitDefaultsToThePoolMaximum() {
+        assertThat(ProcessingExecutors.concurrencyLimit(processing("virtual", 0))).isEqualTo(6);
+        assertThat(ProcessingExecutors.concurrencyLimit(processing("virtual", 500))).isEqualTo(500);
+    }
+
+    @Test
+    void unknownModesAreRejected() {
+        assertThatThrownBy(() -> ProcessingExecutors.create(processing("fibers", 0), "test-"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("fibers");
+        assertThat(ProcessingExecutors.isVirtual(processing("platform", 0))).isFalse();
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void virtualModeFallsBackToPlatformThreadsBeforeJava21() {
+        AsyncTaskExecutor executor = ProcessingExecutors.create(processing("Virtual", 0), "test-");
+
+        assertThat(ProcessingExecutors.isVirtual(processing("virtual", 0))).isFalse();
+        assertThat(executor).isInstanceOf(ThreadPoolTaskExecutor.class);
+        ((ThreadPoolTaskExecutor) executor).shutdown();
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void virtualModeRunsTasksOnVirtualThreads() throws Exception {
+        AsyncTaskExecutor executor = ProcessingExecutors.create(processing("virtual", 2), "test-");
+
+        assertThat(ProcessingExecutors.isVirtual(processing("virtual", 0))).isTrue();
+        assertThat(executor).isInstanceOf(SimpleAsyncTaskExecutor.class);
+        assertThat(((SimpleAsyncTaskExecutor) executor).getConcurrencyLimit()).isEqualTo(2);
+        assertThat(executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS)).startsWith("test-");
+    }
+
+    private static SpiAppProperties.Processing processing(String mode, int concurrencyLimit) {
+        SpiAppProperties.Processing processing = new SpiAppProperties.Processing();
+        processing.setThreadPoolSize(3);
+        processing.getExecutor().setMode(mode);
+        processing.getExecutor().setConcurrencyLimit(concurrencyLimit);
+        return processing;
+    }
+}
@@ -0,0 +1,85 @@
+package com.ads.apiseng.config;
+
+import com.ads.apiseng.util.XmlLimitExceededException;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = {RequestSizeLimitFilter.class, SpiAppConfiguration.class, RequestSizeLimitFilterTest.Config.class},
+    properties = "spi-app.processing.limits.max-bytes=16")
+class RequestSizeLimitFilterTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private RequestSizeLimitFilter filter;
+
+    @Test
+    void declaredLengthsOverTheLimitAreRefusedUpFront() throws Exception {
+        MockHttpServletRequest request = post("/api/transform/order", "<order>" + "x".repeat(20) + "</order>");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+    }
+
+    @Test
+    void undeclaredBodiesAreCutOffWhileReading() {
+        // A chunked body declares no length
+        HttpServletRequest request = new HttpServletRequestWrapper(post("/api/transform/order", "<order>" + "x".repeat(20) + "</order>")) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+
+        assertThatThrownBy(() -> filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new ReadingServlet())))
+            .isInstanceOfSatisfying(XmlLimitExceededException.class, e -> assertThat(e.getStatus()).isEqualTo(413));
+    }
+
+    @Test
+    void bodiesWithinTheLimitAndOtherPathsPass() throws Exception {
+        MockFilterChain small = new MockFilterChain(new ReadingServlet());
+        filter.doFilter(post("/api/transform/order", "<order/>"), new MockHttpServletResponse(), small);
+        assertThat(small.getRequest()).isNotNull();
+
+        MockFilterChain router = new MockFilterChain(new ReadingServlet());
+        filter.doFilter(post("/api/router/dispatch", "<order>" + "x".repeat(20) + "</order>"), new MockHttpServletResponse(), router);
+        assertThat(router.getRequest()).isNotNull();
+    }
+
+    private static MockHttpServletRequest post(String uri, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContent(body.getBytes());
+        request.setContentType("application/xml");
+        return request;
+    }
+
+    private static final class ReadingServlet extends HttpServlet {
+
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            request.getInputStream().readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.support.GenericMessage;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = {AdaptiveConcurrencyLimiterTest.Config.class},
+    properties = {"spi-app.channels.content-router.admission.enabled=true",
+        "spi-app.channels.content-router.admission.initial-limit=4",
+        "spi-app.channels.content-router.admission.min-limit=1",
+        "spi-app.channels.content-router.admission.max-limit=5",
+        "spi-app.channels.content-router.admission.backoff-ratio=0.5",
+        "spi-app.channels.content-router.admission.retry-after-seconds=3"})
+class AdaptiveConcurrencyLimiterTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    private static final MessageChannel CHANNEL = new DirectChannel();
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void newLimiter() {
+        // A fresh limit for every test
+        limiter = beanFactory.createBean(AdaptiveConcurrencyLimiter.class);
+    }
+
+    @Test
+    void messagesOverTheLimitAreRefusedWith429() {
+        Message<?>[] admitted = new Message<?>[4];
+        for (int i = 0; i < admitted.length; i++) {
+            admitted[i] = limiter.preSend(new GenericMessage<>("m" + i), CHANNEL);
+        }
+
+        assertThatThrownBy(() -> limiter.preSend(new GenericMessage<>("over"), CHANNEL))
+            .isInstanceOfSatisfying(RouterOverloadedException.class, e -> {
+                assertThat(e.getStatus()).isEqualTo(429);
+                assertThat(e.getRetryAfterSeconds()).isEqualTo(3);
+            });
+        assertThat(limiter.getStats()).containsEntry("inFlight", 4).containsEntry("admitted", 4L).containsEntry("rejected", 1L);
+
+        limiter.afterSendCompletion(admitted[0], CHANNEL, true, null);
+        assertThat(limiter.preSend(new GenericMessage<>("again"), CHANNEL).getHeaders())
+            .containsKey(AdaptiveConcurrencyLimiter.ADMITTED_AT_HEADER);
+    }
+
+    @Test
+    void executorRejectionsCutTheLimitOncePerEpisode() {
+        Message<?> first = limiter.preSend(new GenericMessage<>("a"), CHANNEL);
+        Message<?> second = limiter.preSend(new GenericMessage<>("b"), CHANNEL);
+        Exception rejection = new MessageDeliveryException(first, "bulkhead full", new TaskRejectedException("full"));
+
+        limiter.afterSendCompletion(first, CHANNEL, false, rejection);
+        assertThat(limiter.getStats()).containsEntry("limit", 2);
+
+        // Admitted before the cut, so it is the same episode
+        limiter.afterSendCompletion(second, CHANNEL, false, rejection);
+        assertThat(limiter.getStats()).containsEntry("limit", 2);
+
+        Message<?> third = limiter.preSend(new GenericMessage<>("c"), CHANNEL);
+        limiter.afterSendCompletion(third, CHANNEL, false, rejection);
+        assertThat(limiter.getStats()).containsEntry("limit", 1).containsEntry("inFlight", 0);
+
+        Message<?> fourth = limiter.preSend(new GenericMessage<>("d"), CHANNEL);
+        limiter.afterSendCompletion(fourth, CHANNEL, false, rejection);
+        assertThat(limiter.getStats()).as("never below min-limit").containsEntry("limit", 1);
+    }
+
+    @Test
+    void slowCompletionsCountAsCongestion() throws Exception {
+        Message<?> fast = limiter.preSend(new GenericMessage<>("fast"), CHANNEL);
+        limiter.afterSendCompletion(fast, CHANNEL, true, null);
+
+        Message<?> slow = limiter.preSend(new GenericMessage<>("slow"), CHANNEL);
+        Thread.sleep(20);
+        limiter.afterSendCompletion(slow, CHANNEL, true, null);
+
+        // Halved at least once, whether or not a slow machine also made the first one look congested
+        assertThat((int) limiter.getStats().get("limit")).isLessThanOrEqualTo(2);
+        assertThat((double) limiter.getStats().get("averageLatencyMs")).isPositive();
+    }
+
+    @Test
+    void fastCompletionsGrowAnUsedLimitUpToTheMaximum() {
+        for (int round = 0; round < 100; round++) {
+            Message<?>[] batch = new Message<?>[(int) limiter.getStats().get("limit")];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = limiter.preSend(new GenericMessage<>(i), CHANNEL);
+            }
+            for (Message<?> message : batch) {
+                limiter.afterSendCompletion(message, CHANNEL, true, null);
+            }
+        }
+
+        assertThat(limiter.getStats()).containsEntry("limit", 5).containsEntry("inFlight", 0);
+    }
+
+    @Test
+    void executorChannelsReleaseAfterHandling() {
+        ExecutorChannel channel = new ExecutorChannel(new SyncTaskExecutor());
+        channel.addInterceptor(limiter);
+        // Initialized as a bean would be, which is when the channel starts calling beforeHandle
+        channel.setBeanFactory(beanFactory);
+        channel.afterPropertiesSet();
+        Map<String, Object> during = new HashMap<>();
+        channel.subscribe(message -> during.putAll(limiter.getStats()));
+
+        channel.send(new GenericMessage<>("x"));
+
+        assertThat(during).containsEntry("inFlight", 1).containsEntry("queueDepth", 0);
+        assertThat(limiter.getStats()).containsEntry("inFlight", 0).containsEntry("queueDepth", 0).containsEntry("admitted", 1L);
+    }
+
+    @Test
+    void overloadsAreFoundInTheCauseChain() {
+        RouterOverloadedException refused = new RouterOverloadedException(429, 1, "limit");
+
+        assertThat(limiter.findOverload(new MessageDeliveryException(new GenericMessage<>("m"), "wrapped", refused))).isSameAs(refused);
+        assertThat(limiter.findOverload(new IllegalStateException(new TaskRejectedException("full"))))
+            .satisfies(e -> assertThat(e.getStatus()).isEqualTo(503));
+        assertThat(limiter.findOverload(new IllegalStateException("other"))).isNull();
+    }
+}
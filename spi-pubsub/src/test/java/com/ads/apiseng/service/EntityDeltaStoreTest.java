@@ -0,0 +1,97 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {EntityDeltaStore.class, EntityDeltaStoreTest.Config.class},
+    properties = "spi-app.processing.delta.enabled=true")
+class EntityDeltaStoreTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private EntityDeltaStore deltaStore;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeEach
+    void clearStore() {
+        deltaStore.clear();
+    }
+
+    @Test
+    void firstVersionIsPublishedWholeWithItsVersion() throws Exception {
+        JsonNode published = objectMapper.readTree(deltaStore.toDelta("customer", customer("1", "Oslo")));
+
+        assertThat(published.get("version").asLong()).isEqualTo(1);
+        assertThat(published.at("/data/address/city").asText()).isEqualTo("Oslo");
+        assertThat(published.has("patch")).isFalse();
+    }
+
+    @Test
+    void resentEntityIsPublishedAsAPatchAgainstItsBaseVersion() throws Exception {
+        deltaStore.toDelta("customer", customer("1", "Oslo"));
+
+        JsonNode published = objectMapper.readTree(deltaStore.toDelta("customer", customer("1", "Bergen")));
+
+        assertThat(published.has("data")).isFalse();
+        assertThat(published.get("key").asText()).isEqualTo("1");
+        assertThat(published.get("version").asLong()).isEqualTo(2);
+        assertThat(published.get("baseVersion").asLong()).isEqualTo(1);
+        assertThat(objectMapper.writeValueAsString(published.get("patch")))
+            .isEqualTo("[{\"op\":\"replace\",\"path\":\"/address/city\",\"value\":\"Bergen\"}]");
+    }
+
+    @Test
+    void typesWithoutKeyPathAndErrorsArePublishedAsTheyAre() {
+        String order = "{\"type\":\"order\",\"status\":\"success\",\"data\":{\"orderId\":\"1\"}}";
+        String error = "{\"type\":\"customer\",\"status\":\"error\",\"error\":\"bad\"}";
+
+        assertThat(deltaStore.toDelta("order", order)).isEqualTo(order);
+        assertThat(deltaStore.toDelta("customer", error)).isEqualTo(error);
+    }
+
+    @Test
+    void concurrentVersionsOfAnEntityFormAnUnbrokenChain() throws Exception {
+        List<CompletableFuture<String>> sends = IntStream.range(0, 200)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> deltaStore.toDelta("customer", customer("7", "City " + i))))
+            .collect(Collectors.toList());
+
+        List<Long> versions = sends.stream().map(CompletableFuture::join).map(json -> {
+            try {
+                JsonNode published = objectMapper.readTree(json);
+                if (published.has("baseVersion")) {
+                    assertThat(published.get("baseVersion").asLong()).isEqualTo(published.get("version").asLong() - 1);
+                }
+                return published.get("version").asLong();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).sorted().collect(Collectors.toList());
+
+        assertThat(versions).isEqualTo(IntStream.rangeClosed(1, 200).mapToObj(Long::valueOf).collect(Collectors.toList()));
+    }
+
+    private static String customer(String id, String city) {
+        return "{\"type\":\"customer\",\"timestamp\":\"1\",\"processor\":\"XmlTransformationService\",\"status\":\"success\","
+            + "\"data\":{\"id\":\"" + id + "\",\"name\":\"A long enough customer name\",\"address\":{\"street\":\"Main\","
+            + "\"city\":\"" + city + "\"}}}";
+    }
+}
@@ -0,0 +1,64 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.util.StreamingXmlJsonConverter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonEnvelopeWriterTest {
+
+    private final JsonEnvelopeWriter envelopeWriter = new JsonEnvelopeWriter();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesTheEnvelopeAroundTheData() throws Exception {
+        String envelope = envelopeWriter.write(envelopeWriter.template("customer"), generator -> {
+            generator.writeStartObject();
+            generator.writeStringField("id", "1");
+            generator.writeEndObject();
+        });
+
+        JsonNode root = objectMapper.readTree(envelope);
+        assertThat(root.get("type").asText()).isEqualTo("customer");
+        assertThat(root.get("processor").asText()).isEqualTo(JsonEnvelopeWriter.DEFAULT_PROCESSOR);
+        assertThat(root.get("status").asText()).isEqualTo("success");
+        assertThat(root.get("timestamp").asText()).matches("\\d+");
+        assertThat(root.get("data").get("id").asText()).isEqualTo("1");
+        assertThat(envelope).startsWith("{\"type\":\"customer\",\"timestamp\":");
+    }
+
+    @Test
+    void failuresBecomeAnEscapedErrorEnvelope() throws Exception {
+        String envelope = envelopeWriter.write(envelopeWriter.template("order", "Test"), generator -> {
+            generator.writeStartObject();
+            throw new IllegalStateException("bad \"quote\"\n");
+        });
+
+        JsonNode root = objectMapper.readTree(envelope);
+        assertThat(root.get("status").asText()).isEqualTo("error");
+        assertThat(root.get("processor").asText()).isEqualTo("Test");
+        assertThat(root.get("error").asText()).isEqualTo("bad \"quote\"\n");
+        assertThat(root.has("data")).isFalse();
+    }
+
+    @Test
+    void interleavedRepeatsAreWrittenByTheFallback() throws Exception {
+        String envelope = envelopeWriter.write(envelopeWriter.template("generic"),
+            generator -> {
+                generator.writeStartObject();
+                generator.writeStringField("partial", "x");
+                throw new StreamingXmlJsonConverter.NonConsecutiveRepeatException("a");
+            },
+            generator -> generator.writeRawValue("{\"a\":[1,2]}"));
+
+        assertThat(objectMapper.readTree(envelope).get("data").toString()).isEqualTo("{\"a\":[1,2]}");
+    }
+
+    @Test
+    void templatesAreSharedPerTypeAndProcessor() {
+        assertThat(envelopeWriter.template("customer")).isSameAs(envelopeWriter.template("customer"));
+        assertThat(envelopeWriter.template("customer", "Other")).isNotSameAs(envelopeWriter.template("customer"));
+    }
+}
@@ -0,0 +1,106 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppConfiguration;
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.XmlTypeDetector;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = {MappedFileTransformer.class, ParallelRecordTransformer.class, XmlTransformationService.class,
+        JsonEnvelopeWriter.class, XmlRecordSplitter.class, XmlTypeDetector.class, SpiAppConfiguration.class,
+        MappedFileTransformerTest.Config.class},
+    properties = "spi-app.processing.file-transform.enabled=true")
+class MappedFileTransformerTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @TempDir
+    static Path inputDirectory;
+
+    @DynamicPropertySource
+    static void directories(DynamicPropertyRegistry registry) {
+        registry.add("spi-app.processing.file-transform.input-directory", inputDirectory::toString);
+        registry.add("spi-app.processing.file-transform.output-directory", () -> inputDirectory.resolve("out").toString());
+    }
+
+    @Autowired
+    private MappedFileTransformer fileTransformer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void batchFilesBecomeNdjsonInDocumentOrder() throws Exception {
+        String batch = IntStream.range(0, 50).mapToObj(i -> "<order><orderId>" + i + "</orderId></order>")
+            .collect(Collectors.joining("", "<orders>", "</orders>"));
+        Files.writeString(inputDirectory.resolve("orders.xml"), batch);
+
+        Map<String, Object> result = fileTransformer.transform("orders.xml", null);
+
+        assertThat(result).containsEntry("type", "order").containsEntry("mode", "records").containsEntry("records", 50);
+        Path output = Path.of((String) result.get("output"));
+        assertThat(output).isEqualTo(inputDirectory.resolve("out/orders.ndjson"));
+        List<String> lines = Files.readAllLines(output);
+        assertThat(lines).hasSize(50);
+        for (int i = 0; i < lines.size(); i++) {
+            assertThat(objectMapper.readTree(lines.get(i)).at("/data/orderId").asText()).isEqualTo(String.valueOf(i));
+        }
+        assertThat(inputDirectory.resolve("out/orders.ndjson.part")).doesNotExist();
+    }
+
+    @Test
+    void singleDocumentsBecomeOneJsonFile() throws Exception {
+        Files.writeString(inputDirectory.resolve("invoice.xml"), "<invoice id=\"9\"><line>a</line><total>5</total><line>b</line></invoice>");
+
+        Map<String, Object> result = fileTransformer.transform("invoice.xml", "invoice");
+
+        assertThat(result).containsEntry("mode", "document").containsEntry("records", 0);
+        JsonNode json = objectMapper.readTree(inputDirectory.resolve("out/invoice.json").toFile());
+        assertThat(json.get("id").asText()).isEqualTo("9");
+        // Interleaved repeats go through the tree fallback, which keeps the last value
+        assertThat(json.get("total").asText()).isEqualTo("5");
+    }
+
+    @Test
+    void pathsOutsideTheInputDirectoryAreRejected() {
+        assertThatThrownBy(() -> fileTransformer.transform("../outside.xml", "order"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> fileTransformer.transform("missing.xml", "order"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void symbolicLinksOutOfTheInputDirectoryAreRejected() throws Exception {
+        Path outside = Files.createTempFile("outside", ".xml");
+        try {
+            Files.writeString(outside, "<order><orderId>1</orderId></order>");
+            Files.createSymbolicLink(inputDirectory.resolve("link.xml"), outside);
+
+            assertThatThrownBy(() -> fileTransformer.transform("link.xml", "order"))
+                .isInstanceOf(IllegalArgumentException.class);
+        } finally {
+            Files.deleteIfExists(inputDirectory.resolve("link.xml"));
+            Files.delete(outside);
+        }
+    }
+}
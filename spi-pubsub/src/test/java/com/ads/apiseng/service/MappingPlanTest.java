@@ -0,0 +1,94 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ctc.wstx.stax.WstxInputFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappingPlanTest {
+
+    private final WstxInputFactory inputFactory = new WstxInputFactory();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesFieldsInDeclaredOrderWithTypes() throws Exception {
+        MappingPlan plan = plan(
+            field("id", "id", "integer", false),
+            field("city", "address/city", "string", false),
+            field("active", "active", "boolean", false),
+            field("price", "price", "number", false));
+
+        String json = write(plan, "<product><price>9.50</price><active>1</active><id>42</id>"
+            + "<address><street>Main</street><city>Oslo</city></address></product>");
+
+        assertThat(json).isEqualTo("{\"id\":42,\"city\":\"Oslo\",\"active\":true,\"price\":9.50}");
+    }
+
+    @Test
+    void collectsRepeatedValuesAndAttributes() throws Exception {
+        MappingPlan plan = plan(
+            field("skus", "items/item/@sku", "string", true),
+            field("quantities", "items/item/quantity", "integer", true));
+
+        String json = write(plan, "<order><items><item sku=\"A\"><quantity>2</quantity></item>"
+            + "<item sku=\"B\"><quantity>x</quantity></item></items></order>");
+
+        assertThat(json).isEqualTo("{\"skus\":[\"A\",\"B\"],\"quantities\":[2,\"x\"]}");
+    }
+
+    @Test
+    void nestedCapturedElementsKeepTheirOwnText() throws Exception {
+        MappingPlan plan = plan(
+            field("note", "note", "string", false),
+            field("author", "note/author", "string", false));
+
+        String json = write(plan, "<doc><note>hello <author>Ann</author>world</note></doc>");
+
+        assertThat(objectMapper.readTree(json).get("note").asText()).isEqualTo("hello world");
+        assertThat(objectMapper.readTree(json).get("author").asText()).isEqualTo("Ann");
+    }
+
+    @Test
+    void missingFieldsAreLeftOut() throws Exception {
+        MappingPlan plan = plan(field("id", "id", "integer", false), field("name", "name", "string", false));
+
+        assertThat(write(plan, "<customer><name>A</name></customer>")).isEqualTo("{\"name\":\"A\"}");
+    }
+
+    @Test
+    void attributeMustBeTheLastStep() {
+        assertThatThrownBy(() -> plan(field("bad", "@id/name", "string", false)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private MappingPlan plan(SpiAppProperties.Routing.FieldMapping... fields) {
+        SpiAppProperties.Routing.MappingPlanConfig config = new SpiAppProperties.Routing.MappingPlanConfig();
+        config.setFields(new ArrayList<>(List.of(fields)));
+        return MappingPlan.compile("test", config);
+    }
+
+    private static SpiAppProperties.Routing.FieldMapping field(String name, String path, String type, boolean repeated) {
+        SpiAppProperties.Routing.FieldMapping field = new SpiAppProperties.Routing.FieldMapping();
+        field.setName(name);
+        field.setPath(path);
+        field.setType(type);
+        field.setRepeated(repeated);
+        return field;
+    }
+
+    private String write(MappingPlan plan, String xml) throws Exception {
+        StringWriter out = new StringWriter();
+        try (var generator = objectMapper.getFactory().createGenerator(out)) {
+            plan.write(inputFactory.createXMLStreamReader(new StringReader(xml)), generator);
+        }
+        return out.toString();
+    }
+}
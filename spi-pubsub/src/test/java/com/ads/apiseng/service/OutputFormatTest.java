@@ -0,0 +1,51 @@
+package com.ads.apiseng.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputFormatTest {
+
+    private final JsonEnvelopeWriter envelopeWriter = new JsonEnvelopeWriter();
+
+    @Test
+    void acceptHeaderPicksTheFirstBinaryFormat() {
+        assertThat(OutputFormat.fromAccept(null)).isEqualTo(OutputFormat.JSON);
+        assertThat(OutputFormat.fromAccept("application/json")).isEqualTo(OutputFormat.JSON);
+        assertThat(OutputFormat.fromAccept("text/html, application/CBOR;q=0.9")).isEqualTo(OutputFormat.CBOR);
+        assertThat(OutputFormat.fromAccept("application/x-jackson-smile, application/cbor")).isEqualTo(OutputFormat.SMILE);
+        assertThat(OutputFormat.fromAccept("*/*")).isEqualTo(OutputFormat.JSON);
+    }
+
+    @Test
+    void namesResolveCaseInsensitivelyWithJsonAsDefault() {
+        assertThat(OutputFormat.fromName(" Smile ")).isEqualTo(OutputFormat.SMILE);
+        assertThat(OutputFormat.fromName("cbor")).isEqualTo(OutputFormat.CBOR);
+        assertThat(OutputFormat.fromName("xml")).isEqualTo(OutputFormat.JSON);
+        assertThat(OutputFormat.fromName(null)).isEqualTo(OutputFormat.JSON);
+        assertThat(OutputFormat.JSON.isBinary()).isFalse();
+        assertThat(OutputFormat.CBOR.isBinary()).isTrue();
+    }
+
+    @Test
+    void transcodedEnvelopesReadBackAsTheSameTree() throws Exception {
+        String json = "{\"type\":\"order\",\"status\":\"success\",\"data\":{\"id\":\"7\",\"items\":[1,2.5,true,null]}}";
+        ObjectMapper jsonMapper = new ObjectMapper();
+
+        for (OutputFormat format : OutputFormat.values()) {
+            byte[] encoded = envelopeWriter.transcode(json, format);
+            ObjectMapper mapper = new ObjectMapper(format.getFactory());
+
+            assertThat(mapper.readTree(encoded)).as(format.name()).isEqualTo(jsonMapper.readTree(json));
+        }
+    }
+
+    @Test
+    void binaryFormatsAreSmallerThanTheJsonText() {
+        String json = "{\"records\":[" + "{\"id\":12345,\"name\":\"n\"},".repeat(50) + "{\"id\":1,\"name\":\"n\"}]}";
+
+        assertThat(envelopeWriter.transcode(json, OutputFormat.SMILE).length).isLessThan(json.length());
+        assertThat(envelopeWriter.transcode(json, OutputFormat.CBOR).length).isLessThan(json.length());
+    }
+}
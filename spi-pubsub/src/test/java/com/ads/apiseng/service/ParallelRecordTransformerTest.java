@@ -0,0 +1,58 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppConfiguration;
+import com.ads.apiseng.config.SpiAppProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {ParallelRecordTransformer.class, XmlTransformationService.class, JsonEnvelopeWriter.class,
+        XmlRecordSplitter.class, SpiAppConfiguration.class, ParallelRecordTransformerTest.Config.class},
+    properties = {"spi-app.processing.parallel-records.parallelism=4", "spi-app.processing.parallel-records.min-records=8"})
+class ParallelRecordTransformerTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private ParallelRecordTransformer parallelRecordTransformer;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void resultsComeBackInDocumentOrder() throws Exception {
+        String batch = IntStream.range(0, 500).mapToObj(i -> "<order><orderId>" + i + "</orderId></order>")
+            .collect(Collectors.joining("", "<orders>", "</orders>"));
+
+        List<String> results = parallelRecordTransformer.transformAll(batch, "order", "order");
+
+        assertThat(results).hasSize(500);
+        for (int i = 0; i < results.size(); i++) {
+            assertThat(objectMapper.readTree(results.get(i)).at("/data/orderId").asText()).isEqualTo(String.valueOf(i));
+        }
+    }
+
+    @Test
+    void batchesTheScannerGivesUpOnAreSplitByTheParser() throws Exception {
+        String batch = "<orders xmlns:x=\"urn:x\"><order><orderId>1</orderId></order><order><orderId>2</orderId></order></orders>";
+
+        assertThat(parallelRecordTransformer.transformAll(batch, "order", "order")).hasSize(2);
+    }
+
+    @Test
+    void documentsWithoutARootHaveNoResults() throws Exception {
+        assertThat(parallelRecordTransformer.transformAll("<?xml version=\"1.0\"?>", "order", "order")).isEmpty();
+        assertThat(parallelRecordTransformer.transformAll("<!DOCTYPE orders>", "order", "order")).isEmpty();
+    }
+}
@@ -0,0 +1,76 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppConfiguration;
+import com.ads.apiseng.config.SpiAppProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {PubSubService.class, JsonEnvelopeWriter.class, SpiAppConfiguration.class,
+        PubSubServiceTest.Config.class})
+class PubSubServiceTest {
+
+    private static final String RESULT = "{\"type\":\"customer\",\"data\":{\"id\":\"1\"}}";
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private PubSubService pubSubService;
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private PrintStream originalOut;
+
+    @BeforeEach
+    void captureOutput() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void restoreOutput() {
+        System.setOut(originalOut);
+        spiAppProperties.getPubsub().getMessageBroker().setEnabled(true);
+    }
+
+    @Test
+    void publishesResultToTheTypesSubscribersInTheirFormats() {
+        pubSubService.publishResult("CUSTOMER", RESULT);
+
+        String log = out.toString(StandardCharsets.UTF_8);
+        assertThat(log).contains("Notifying subscriber: audit with content: " + RESULT);
+        assertThat(log).contains("Notifying subscriber: notification with content: " + RESULT);
+        assertThat(log).contains("Notifying subscriber: analytics with SMILE content");
+    }
+
+    @Test
+    void publishesNothingWhenTheBrokerIsDisabled() {
+        spiAppProperties.getPubsub().getMessageBroker().setEnabled(false);
+
+        pubSubService.publishResult("customer", RESULT);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).doesNotContain("Notifying subscriber");
+    }
+
+    @Test
+    void publishesNothingForTypesWithoutSubscribers() {
+        pubSubService.publishResult("unknown", RESULT);
+
+        assertThat(out.toString(StandardCharsets.UTF_8)).doesNotContain("Notifying subscriber");
+    }
+}
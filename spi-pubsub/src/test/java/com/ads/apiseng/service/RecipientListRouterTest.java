@@ -0,0 +1,67 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppConfiguration;
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.XmlTypeDetector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {RecipientListRouter.class, XmlTypeDetector.class, JsonEnvelopeWriter.class,
+        SpiAppConfiguration.class, RecipientListRouterTest.Config.class},
+    properties = "spi-app.routing.recipient-list.enabled=true")
+class RecipientListRouterTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private RecipientListRouter recipientListRouter;
+
+    @Test
+    void orderWithOtherTypesKeywordsIsNotComposite() {
+        String order = "<order><orderId>ORD-1</orderId><customerId>7</customerId>"
+            + "<items><item><sku>A</sku></item></items></order>";
+
+        assertThat(recipientListRouter.isComposite(order)).isFalse();
+    }
+
+    @Test
+    void sectionsOfTwoTypesAreComposite() {
+        String envelope = "<envelope><customer><id>1</id></customer><order><orderId>O1</orderId></order></envelope>";
+
+        assertThat(recipientListRouter.isComposite(envelope)).isTrue();
+    }
+
+    @Test
+    void nestedSectionOfAnotherTypeIsComposite() {
+        String order = "<order><orderId>O1</orderId><customer><id>7</id></customer></order>";
+
+        assertThat(recipientListRouter.isComposite(order)).isTrue();
+    }
+
+    @Test
+    void unparsableDocumentIsNotComposite() {
+        assertThat(recipientListRouter.isComposite("<envelope><customer></envelope><order/>")).isFalse();
+    }
+
+    @Test
+    void routeEnvelopesEachSectionInPriorityOrder() throws Exception {
+        String envelope = "<envelope><order><orderId>O1</orderId></order><customer><id>1</id></customer></envelope>";
+
+        Map<String, String> results = recipientListRouter.route(envelope);
+
+        assertThat(results).containsOnlyKeys("customer", "order");
+        assertThat(results.keySet()).containsExactly("customer", "order");
+        assertThat(results.get("customer")).contains("\"type\":\"customer\"").contains("\"id\":\"1\"");
+        assertThat(results.get("order")).contains("\"orderId\":\"O1\"");
+    }
+}
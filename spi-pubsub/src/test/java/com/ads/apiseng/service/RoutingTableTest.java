@@ -0,0 +1,103 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.ads.apiseng.util.XmlTypeDetector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.messaging.MessageChannel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {RoutingTable.class, XmlTypeDetector.class, RoutingTableTest.Config.class})
+class RoutingTableTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+
+        @Bean
+        public MessageChannel customerProcessingChannel() {
+            return new DirectChannel();
+        }
+
+        @Bean
+        public MessageChannel customerOutputChannel() {
+            return new DirectChannel();
+        }
+
+        @Bean
+        public MessageChannel genericProcessingChannel() {
+            return new DirectChannel();
+        }
+    }
+
+    @Autowired
+    private RoutingTable routingTable;
+
+    @Autowired
+    private XmlTypeDetector xmlTypeDetector;
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    @AfterEach
+    void restore() {
+        spiAppProperties.getRouting().getXmlTypes().get("customer").setEnabled(true);
+        routingTable.rebuild();
+    }
+
+    @Test
+    void routesTypesByDetectedAndConfiguredName() {
+        RoutingTable.Route route = routingTable.route("CUSTOMER");
+
+        assertThat(route.getChannel()).isEqualTo("customerProcessingChannel");
+        assertThat(route.getRecordElement()).isEqualTo("customer");
+        assertThat(routingTable.route("customer")).isSameAs(route);
+    }
+
+    @Test
+    void routesDetectedOrdinalsToTheSameRoutes() {
+        int ordinal = xmlTypeDetector.detectOrdinal("<customer><id>1</id></customer>");
+
+        assertThat(routingTable.route(ordinal)).isSameAs(routingTable.route("CUSTOMER"));
+        assertThat(routingTable.route(XmlTypeDetector.GENERIC).getChannel()).isEqualTo("genericProcessingChannel");
+        assertThat(routingTable.route(XmlTypeDetector.INVALID).getChannel()).isEqualTo("genericProcessingChannel");
+    }
+
+    @Test
+    void resolvesOutputChannelsWhenBuilt() {
+        assertThat(routingTable.route("CUSTOMER").getOutputChannel()).isEqualTo("customerOutputChannel");
+        // No output channel bean for generic in this context, so the default name is kept
+        assertThat(routingTable.route("GENERIC").getOutputChannel()).isEqualTo(RoutingTable.DEFAULT_OUTPUT_CHANNEL);
+    }
+
+    @Test
+    void unknownTypesTakeTheFallback() {
+        assertThat(routingTable.route("GENERIC").getChannel()).isEqualTo("genericProcessingChannel");
+        assertThat(routingTable.route("INVALID").getChannel()).isEqualTo("genericProcessingChannel");
+        assertThat(routingTable.route(null).getChannel()).isEqualTo("genericProcessingChannel");
+    }
+
+    @Test
+    void typesWhoseChannelIsNotDeclaredTakeTheFallback() {
+        // order has no channel bean in this context, invoice and user have none in the application
+        assertThat(routingTable.route("ORDER").getChannel()).isEqualTo("genericProcessingChannel");
+        assertThat(routingTable.route("INVOICE").getChannel()).isEqualTo("genericProcessingChannel");
+    }
+
+    @Test
+    void disabledTypesTakeTheFallbackWithoutSplitting() {
+        spiAppProperties.getRouting().getXmlTypes().get("customer").setEnabled(false);
+        routingTable.rebuild();
+
+        RoutingTable.Route route = routingTable.route("CUSTOMER");
+        assertThat(route.getChannel()).isEqualTo("genericProcessingChannel");
+        assertThat(route.getRecordElement()).isNull();
+    }
+}
@@ -0,0 +1,81 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {TransformationResultCache.class, TransformationResultCacheTest.Config.class})
+class TransformationResultCacheTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private TransformationResultCache resultCache;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    @BeforeEach
+    void clearCache() {
+        resultCache.clear();
+    }
+
+    @Test
+    void samePayloadAndTypeHits() throws Exception {
+        store("customer", "<customer><id>1</id></customer>", "{\"id\":\"1\"}");
+
+        assertThat(lookup("customer", "<customer><id>1</id></customer>")).isEqualTo("{\"id\":\"1\"}");
+    }
+
+    @Test
+    void otherPayloadsAndTypesMiss() throws Exception {
+        store("customer", "<customer><id>1</id></customer>", "{\"id\":\"1\"}");
+
+        assertThat(lookup("customer", "<customer><id>2</id></customer>")).isNull();
+        assertThat(lookup("product", "<customer><id>1</id></customer>")).isNull();
+    }
+
+    @Test
+    void keysCompareTypeLengthAndHashes() {
+        var key = resultCache.key("customer", "<a>1</a>");
+
+        assertThat(key).isEqualTo(resultCache.key("customer", new String("<a>1</a>")));
+        assertThat(key).isNotEqualTo(resultCache.key("customer", "<a>2</a>"));
+        assertThat(key).isNotEqualTo(resultCache.key("product", "<a>1</a>"));
+    }
+
+    @Test
+    void enabledPerTypeFromConfiguration() {
+        assertThat(resultCache.isEnabled("customer")).isTrue();
+        assertThat(resultCache.isEnabled("order")).isFalse();
+    }
+
+    private void store(String type, String xml, String data) throws Exception {
+        write(resultCache.storing(resultCache.key(type, xml), generator -> generator.writeRawValue(data)));
+    }
+
+    private String lookup(String type, String xml) throws Exception {
+        JsonEnvelopeWriter.DataWriter cached = resultCache.lookup(resultCache.key(type, xml));
+        return cached != null ? write(cached) : null;
+    }
+
+    private String write(JsonEnvelopeWriter.DataWriter data) throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            data.write(generator);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.integration.channel.ExecutorChannel;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = {TypeBulkheads.class, TypeBulkheadsTest.Config.class},
+    properties = {"spi-app.routing.xml-types.order.bulkhead.queue-capacity=1",
+        "spi-app.routing.xml-types.invoice.bulkhead.rejection-policy=discard"})
+class TypeBulkheadsTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private TypeBulkheads typeBulkheads;
+
+    @Test
+    void typesWithABulkheadGetAnExecutorChannel() {
+        assertThat(typeBulkheads.processingChannel("customer")).isInstanceOf(ExecutorChannel.class);
+        assertThat(typeBulkheads.executorFor("CUSTOMER")).isSameAs(typeBulkheads.executorFor("customer"));
+    }
+
+    @Test
+    void typesWithoutOneKeepADirectChannel() {
+        assertThat(typeBulkheads.processingChannel("product")).isInstanceOf(DirectChannel.class);
+        assertThat(typeBulkheads.executorFor("unknown")).isNull();
+    }
+
+    @Test
+    void aFullBulkheadRejectsAndCountsIt() throws Exception {
+        var executor = typeBulkheads.executorFor("order");
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        executor.execute(() -> {
+            running.countDown();
+            awaitQuietly(release);
+        });
+        running.await(5, TimeUnit.SECONDS);
+        executor.execute(() -> awaitQuietly(release));
+        try {
+            assertThatThrownBy(() -> executor.execute(() -> { })).isInstanceOf(TaskRejectedException.class);
+            assertThat(((Map<?, ?>) typeBulkheads.getStats().get("order")).get("rejected")).isEqualTo(1L);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void discardingPoliciesAreRefused() {
+        assertThatThrownBy(() -> typeBulkheads.executorFor("invoice"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("discard");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
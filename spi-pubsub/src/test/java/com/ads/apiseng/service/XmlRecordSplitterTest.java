@@ -0,0 +1,75 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppConfiguration;
+import com.ads.apiseng.config.SpiAppProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {XmlRecordSplitter.class, SpiAppConfiguration.class, XmlRecordSplitterTest.Config.class})
+class XmlRecordSplitterTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private XmlRecordSplitter recordSplitter;
+
+    @Test
+    void batchElementRootIsBatch() {
+        assertThat(recordSplitter.isBatch("customer", "<customers><customer><id>1</id></customer></customers>")).isTrue();
+        assertThat(recordSplitter.isBatch("ORDER", "<?xml version=\"1.0\"?><orders/>")).isTrue();
+    }
+
+    @Test
+    void wrapperRootWithRecordsIsBatch() {
+        assertThat(recordSplitter.isBatch("order", "<export><header/><order><orderId>1</orderId></order></export>")).isTrue();
+    }
+
+    @Test
+    void recordRootIsNotBatch() {
+        assertThat(recordSplitter.isBatch("customer", "<?xml version=\"1.0\"?>\n<customer><id>1</id></customer>")).isFalse();
+    }
+
+    @Test
+    void prefixedRecordRootIsNotBatch() {
+        String customer = "<c:customer xmlns:c=\"urn:spi:customer\"><c:id>1</c:id></c:customer>";
+
+        assertThat(recordSplitter.isBatch("customer", customer)).isFalse();
+        assertThat(recordSplitter.isBatchRoot("customer", "c:customer")).isFalse();
+    }
+
+    @Test
+    void documentClassifiedByPathWithoutRecordsIsNotBatch() {
+        assertThat(recordSplitter.isBatch("customer", "<doc type=\"customer\"><id>1</id><name>A</name></doc>")).isFalse();
+    }
+
+    @Test
+    void typesWithoutRecordElementAreNeverBatches() {
+        assertThat(recordSplitter.isBatch("invoice", "<invoices><invoice/></invoices>")).isFalse();
+        assertThat(recordSplitter.isBatch("generic", "<anything><customer/></anything>")).isFalse();
+    }
+
+    @Test
+    void splitsRecordsAtAnyDepthButNotInsideRecords() throws Exception {
+        String batch = "<orders><header><count>2</count></header>"
+            + "<page><order><orderId>1</orderId><order>nested</order></order></page>"
+            + "<order><orderId>2</orderId></order></orders>";
+        List<String> records = new ArrayList<>();
+
+        int count = recordSplitter.split(recordSplitter.openBatch(batch), "order", (index, xml) -> records.add(xml));
+
+        assertThat(count).isEqualTo(2);
+        assertThat(records.get(0)).startsWith("<order><orderId>1</orderId>").contains("<order>nested</order>");
+        assertThat(records.get(1)).isEqualTo("<order><orderId>2</orderId></order>");
+    }
+}
@@ -0,0 +1,55 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.config.SpiAppConfiguration;
+import com.ads.apiseng.config.SpiAppProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(classes = {XmlTransformationService.class, JsonEnvelopeWriter.class, SpiAppConfiguration.class,
+        XmlTransformationServiceTest.Config.class},
+    properties = "spi-app.routing.xml-types.product.transformer=productSummary")
+class XmlTransformationServiceTest {
+
+    private static final String CUSTOMER = "<customer><id>1</id><name>A</name><phone>555</phone>"
+        + "<address><street>Main</street><city>Oslo</city></address></customer>";
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private XmlTransformationService transformationService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void typesKeepEveryFieldUnlessAPlanIsBound() throws Exception {
+        JsonNode data = data(transformationService.transformXmlToJson(CUSTOMER, "customer"));
+
+        assertThat(data.get("phone").asText()).isEqualTo("555");
+        assertThat(data.at("/address/street").asText()).isEqualTo("Main");
+    }
+
+    @Test
+    void boundSamplePlanKeepsOnlyItsFields() throws Exception {
+        String product = "<product><productId>P1</productId><name>Widget</name><price>9.99</price>"
+            + "<supplier>ACME</supplier></product>";
+
+        JsonNode data = data(transformationService.transformXmlToJson(product, "product"));
+
+        assertThat(data.get("price").decimalValue()).isEqualByComparingTo("9.99");
+        assertThat(data.has("supplier")).isFalse();
+    }
+
+    private JsonNode data(String envelope) throws Exception {
+        return objectMapper.readTree(envelope).get("data");
+    }
+}
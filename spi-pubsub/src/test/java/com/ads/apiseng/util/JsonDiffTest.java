@@ -0,0 +1,52 @@
+package com.ads.apiseng.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonDiffTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void equalDocumentsGiveAnEmptyPatch() throws Exception {
+        assertThat(diff("{\"a\":1,\"b\":[1,2]}", "{\"a\":1,\"b\":[1,2]}")).isEqualTo("[]");
+    }
+
+    @Test
+    void objectsAreComparedFieldByField() throws Exception {
+        assertThat(diff("{\"id\":1,\"name\":\"A\",\"old\":true,\"address\":{\"city\":\"Oslo\"}}",
+                "{\"id\":1,\"name\":\"B\",\"address\":{\"city\":\"Oslo\",\"zip\":\"0150\"}}"))
+            .isEqualTo("[{\"op\":\"remove\",\"path\":\"/old\"},"
+                + "{\"op\":\"replace\",\"path\":\"/name\",\"value\":\"B\"},"
+                + "{\"op\":\"add\",\"path\":\"/address/zip\",\"value\":\"0150\"}]");
+    }
+
+    @Test
+    void arraysAreComparedIndexByIndexAndShrinkFromTheEnd() throws Exception {
+        assertThat(diff("{\"items\":[1,2,3,4]}", "{\"items\":[1,5]}"))
+            .isEqualTo("[{\"op\":\"replace\",\"path\":\"/items/1\",\"value\":5},"
+                + "{\"op\":\"remove\",\"path\":\"/items/3\"},"
+                + "{\"op\":\"remove\",\"path\":\"/items/2\"}]");
+        assertThat(diff("[1]", "[1,2]")).isEqualTo("[{\"op\":\"add\",\"path\":\"/1\",\"value\":2}]");
+    }
+
+    @Test
+    void typeChangesAreReplacedWhole() throws Exception {
+        assertThat(diff("{\"a\":[1]}", "{\"a\":{\"b\":1}}"))
+            .isEqualTo("[{\"op\":\"replace\",\"path\":\"/a\",\"value\":{\"b\":1}}]");
+    }
+
+    @Test
+    void fieldNamesAreEscapedAsJsonPointers() throws Exception {
+        assertThat(diff("{}", "{\"a/b~c\":1}"))
+            .isEqualTo("[{\"op\":\"add\",\"path\":\"/a~1b~0c\",\"value\":1}]");
+    }
+
+    private String diff(String source, String target) throws Exception {
+        JsonNode patch = JsonDiff.diff(objectMapper.readTree(source), objectMapper.readTree(target));
+        return objectMapper.writeValueAsString(patch);
+    }
+}
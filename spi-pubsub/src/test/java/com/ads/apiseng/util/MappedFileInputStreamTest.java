@@ -0,0 +1,84 @@
+package com.ads.apiseng.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedFileInputStreamTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAcrossRegionBoundaries() throws Exception {
+        byte[] content = bytes(10_000);
+        Path file = Files.write(directory.resolve("data.bin"), content);
+
+        try (MappedFileInputStream in = new MappedFileInputStream(file, 4096)) {
+            assertThat(in.size()).isEqualTo(content.length);
+            assertThat(readAll(in, 1000)).isEqualTo(content);
+            assertThat(in.read()).isEqualTo(-1);
+            assertThat(in.read(new byte[8], 0, 8)).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void singleByteReadsAndSkipsFollowTheFile() throws Exception {
+        byte[] content = bytes(300);
+        Path file = Files.write(directory.resolve("data.bin"), content);
+
+        try (MappedFileInputStream in = new MappedFileInputStream(file, 128)) {
+            assertThat(in.read()).isEqualTo(content[0] & 0xFF);
+            assertThat(in.skip(200)).isEqualTo(200);
+            assertThat(in.read()).isEqualTo(content[201] & 0xFF);
+            assertThat(in.skip(1000)).isEqualTo(98);
+            assertThat(in.read()).isEqualTo(-1);
+        }
+    }
+
+    @Test
+    void emptyFilesAreAtEndOfStream() throws Exception {
+        Path file = Files.write(directory.resolve("empty.xml"), new byte[0]);
+
+        try (MappedFileInputStream in = new MappedFileInputStream(file)) {
+            assertThat(in.read()).isEqualTo(-1);
+            assertThat(in.available()).isZero();
+        }
+    }
+
+    @Test
+    void closedStreamsAndBadRegionsAreRejected() throws Exception {
+        Path file = Files.write(directory.resolve("data.bin"), bytes(10));
+        MappedFileInputStream in = new MappedFileInputStream(file);
+        in.close();
+
+        assertThatThrownBy(in::read).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> new MappedFileInputStream(file, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new MappedFileInputStream(file, 1L << 31)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] readAll(MappedFileInputStream in, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[chunk];
+        int count;
+        while ((count = in.read(buffer, 0, buffer.length)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+        return content;
+    }
+}
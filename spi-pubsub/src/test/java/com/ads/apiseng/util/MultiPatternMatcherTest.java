@@ -0,0 +1,91 @@
+package com.ads.apiseng.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultiPatternMatcherTest {
+
+    private final MultiPatternMatcher matcher = new MultiPatternMatcher(List.of(
+        List.of("customerId", "customer"),
+        List.of("orderId", "order"),
+        List.of("sku"),
+        List.of("déjà")));
+
+    @Test
+    void highestPriorityGroupWinsWhereverItOccurs() {
+        assertThat(matcher.firstMatch("<order><customer>1</customer></order>")).isZero();
+        assertThat(matcher.firstMatch("<item><sku>1</sku></item><order/>")).isEqualTo(1);
+        assertThat(matcher.firstMatch("<item><sku>1</sku></item>")).isEqualTo(2);
+        assertThat(matcher.firstMatch("<invoice/>")).isEqualTo(-1);
+        assertThat(matcher.firstMatch("")).isEqualTo(-1);
+    }
+
+    @Test
+    void asciiCaseIsIgnored() {
+        assertThat(matcher.firstMatch("<ORDERID>7</ORDERID>")).isEqualTo(1);
+        assertThat(matcher.firstMatch("<Sku/>")).isEqualTo(2);
+        assertThat(matcher.firstMatch("<note>DÉJÀ</note>")).isEqualTo(-1);
+        assertThat(matcher.firstMatch("<note>Déjà vu</note>")).isEqualTo(3);
+    }
+
+    @Test
+    void overlappingPatternsAreFoundThroughFailureLinks() {
+        MultiPatternMatcher overlapping = new MultiPatternMatcher(List.of(List.of("abcd"), List.of("bc"), List.of("c")));
+
+        assertThat(overlapping.firstMatch("xabcx")).isEqualTo(1);
+        assertThat(overlapping.firstMatch("aabcabcd")).isZero();
+        assertThat(overlapping.allMatches("xabcx")).isEqualTo(bits(1, 2));
+    }
+
+    @Test
+    void allMatchesReportsEveryGroup() {
+        assertThat(matcher.allMatches("<order><sku/></order>")).isEqualTo(bits(1, 2));
+        assertThat(matcher.allMatches("<customer/><order/><sku/>déjà")).isEqualTo(bits(0, 1, 2, 3));
+        assertThat(matcher.allMatches("<invoice/>").isEmpty()).isTrue();
+    }
+
+    @Test
+    void agreesWithPlainSubstringSearch() {
+        List<List<String>> groups = List.of(List.of("aba", "bb"), List.of("abab"), List.of("ca", "b"), List.of("ccc"));
+        MultiPatternMatcher random = new MultiPatternMatcher(groups);
+        Random rnd = new Random(42);
+
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = rnd.nextInt(12); i > 0; i--) {
+                text.append("abcxABC".charAt(rnd.nextInt(7)));
+            }
+            BitSet expected = new BitSet();
+            for (int group = 0; group < groups.size(); group++) {
+                for (String pattern : groups.get(group)) {
+                    if (text.toString().toLowerCase().contains(pattern)) {
+                        expected.set(group);
+                    }
+                }
+            }
+
+            assertThat(random.allMatches(text)).as(text.toString()).isEqualTo(expected);
+            assertThat(random.firstMatch(text)).as(text.toString()).isEqualTo(expected.isEmpty() ? -1 : expected.nextSetBit(0));
+        }
+    }
+
+    @Test
+    void emptyPatternsAreRejected() {
+        assertThatThrownBy(() -> new MultiPatternMatcher(List.of(List.of("a"), List.of(""))))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BitSet bits(int... indexes) {
+        BitSet bits = new BitSet();
+        for (int index : indexes) {
+            bits.set(index);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,110 @@
+package com.ads.apiseng.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingXPathClassifierTest {
+
+    private final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+
+    @Test
+    void absolutePathsMatchFromTheRootOnly() throws Exception {
+        StreamingXPathClassifier classifier = classifier("/doc/body/invoice", "INVOICE");
+
+        assertThat(classify(classifier, "<doc><head/><body><invoice/></body></doc>")).isEqualTo("INVOICE");
+        assertThat(classify(classifier, "<wrap><doc><body><invoice/></body></doc></wrap>")).isNull();
+        assertThat(classify(classifier, "<doc><invoice/></doc>")).isNull();
+    }
+
+    @Test
+    void anyDepthPathsAndWildcardsMatchAnywhere() throws Exception {
+        StreamingXPathClassifier classifier = classifier("//lines/*/sku", "PRODUCT");
+
+        assertThat(classify(classifier, "<a><b><lines><line><sku/></line></lines></b></a>")).isEqualTo("PRODUCT");
+        assertThat(classify(classifier, "<lines><sku/></lines>")).isNull();
+    }
+
+    @Test
+    void namespacesUseClarkNotation() throws Exception {
+        StreamingXPathClassifier classifier = new StreamingXPathClassifier(
+            List.of("/{urn:spi:customer}*", "/{}record", "/{urn:x}record"), List.of("CUSTOMER", "PLAIN", "X"));
+
+        assertThat(classify(classifier, "<c:anything xmlns:c=\"urn:spi:customer\"/>")).isEqualTo("CUSTOMER");
+        assertThat(classify(classifier, "<record/>")).isEqualTo("PLAIN");
+        assertThat(classify(classifier, "<record xmlns=\"urn:x\"/>")).isEqualTo("X");
+        assertThat(classify(classifier, "<record xmlns=\"urn:y\"/>")).isNull();
+    }
+
+    @Test
+    void attributePredicatesCheckPresenceAndValue() throws Exception {
+        StreamingXPathClassifier classifier = new StreamingXPathClassifier(
+            List.of("/doc[@type='invoice']", "/doc[@{urn:k}kind=\"a\"][@id]", "/doc[@id]"), List.of("INVOICE", "KIND", "ID"));
+
+        assertThat(classify(classifier, "<doc type=\"invoice\"/>")).isEqualTo("INVOICE");
+        assertThat(classify(classifier, "<doc xmlns:k=\"urn:k\" k:kind=\"a\" id=\"1\"/>")).isEqualTo("KIND");
+        assertThat(classify(classifier, "<doc kind=\"a\" id=\"1\"/>")).isEqualTo("ID");
+        assertThat(classify(classifier, "<doc type=\"order\"/>")).isNull();
+    }
+
+    @Test
+    void firstCompletingElementDecidesThenRulePriority() throws Exception {
+        StreamingXPathClassifier classifier = new StreamingXPathClassifier(
+            List.of("//order", "//customer", "//*[@vip]"), List.of("ORDER", "CUSTOMER", "VIP"));
+
+        assertThat(classify(classifier, "<x><customer/><order/></x>")).isEqualTo("CUSTOMER");
+        assertThat(classify(classifier, "<x><customer vip=\"y\"/></x>")).isEqualTo("CUSTOMER");
+        assertThat(classify(classifier, "<x><order vip=\"y\"/></x>")).isEqualTo("ORDER");
+    }
+
+    @Test
+    void readingStopsAtTheDecidingElement() throws Exception {
+        StreamingXPathClassifier classifier = classifier("/doc/body", "BODY");
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader("<doc><body id=\"1\"><rest/></body></doc>"));
+
+        assertThat(classifier.classify(reader)).isEqualTo("BODY");
+        assertThat(reader.getLocalName()).isEqualTo("body");
+    }
+
+    @Test
+    void readingStopsOnceNoAbsoluteRuleCanMatch() throws Exception {
+        StreamingXPathClassifier classifier = classifier("/doc/body", "BODY");
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader("<other><body/></other>"));
+
+        assertThat(classifier.classify(reader)).isNull();
+        assertThat(reader.getLocalName()).isEqualTo("other");
+    }
+
+    @Test
+    void emptyRuleSetsClassifyNothing() throws Exception {
+        StreamingXPathClassifier classifier = new StreamingXPathClassifier(List.of(), List.of());
+
+        assertThat(classifier.isEmpty()).isTrue();
+        assertThat(classify(classifier, "<doc/>")).isNull();
+    }
+
+    @Test
+    void unsupportedSyntaxIsRejected() {
+        for (String path : List.of("doc", "/doc//body", "/c:doc", "/doc[1]", "/doc[text()='a']", "/doc[@type=a]",
+                "/doc[@type='a", "/{urn:x/doc", "/doc[@*]")) {
+            assertThatThrownBy(() -> classifier(path, "X")).as(path).isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThatThrownBy(() -> new StreamingXPathClassifier(List.of("/a"), List.of()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static StreamingXPathClassifier classifier(String path, String result) {
+        return new StreamingXPathClassifier(List.of(path), List.of(result));
+    }
+
+    private String classify(StreamingXPathClassifier classifier, String xml) throws XMLStreamException {
+        return classifier.classify(inputFactory.createXMLStreamReader(new StringReader(xml)));
+    }
+}
@@ -0,0 +1,53 @@
+package com.ads.apiseng.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StreamingXmlJsonConverterTest {
+
+    private final XmlMapper xmlMapper = new XmlMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StreamingXmlJsonConverter converter = new StreamingXmlJsonConverter(xmlMapper, objectMapper);
+
+    @Test
+    void matchesTheTreeConversion() throws Exception {
+        List<String> documents = List.of(
+            "<customer><id>1</id><name>A &amp; B</name><address><city>Oslo</city></address></customer>",
+            "<order id=\"7\"><items><item>1</item><item>2</item><item>3</item></items></order>",
+            "<note lang=\"en\">text</note>",
+            "<mixed>before<b>bold</b></mixed>",
+            "<?xml version=\"1.0\"?><!-- c --><empty/>",
+            "<r><a/><a></a><b><![CDATA[<x>]]></b></r>",
+            "<p:root xmlns:p=\"urn:p\"><p:child>1</p:child></p:root>");
+        for (String xml : documents) {
+            assertThat(converter.convertToString(xml)).as(xml)
+                .isEqualTo(objectMapper.writeValueAsString(xmlMapper.readTree(xml)));
+        }
+    }
+
+    @Test
+    void convertsFromBytes() throws Exception {
+        String xml = "<customer><name>Zoë</name></customer>";
+        StringWriter out = new StringWriter();
+        try (var generator = objectMapper.getFactory().createGenerator(out)) {
+            converter.convert(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), generator);
+        }
+
+        assertThat(out.toString()).isEqualTo("{\"name\":\"Zoë\"}");
+    }
+
+    @Test
+    void namesRepeatedAfterAnotherSiblingAreLeftToTheTree() {
+        assertThatThrownBy(() -> converter.convertToString("<r><a>1</a><b/><a>2</a></r>"))
+            .isInstanceOf(StreamingXmlJsonConverter.NonConsecutiveRepeatException.class);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ads.apiseng.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class XmlKeyExtractorTest {
+
+    private static final String ORDER = "<?xml version=\"1.0\"?><order status=\"new\">"
+        + "<note><orderId>nested</orderId></note>"
+        + "<orderId> 42 </orderId>"
+        + "<customer><name>A</name><id>7</id></customer>"
+        + "<items><item sku=\"s-1\"/><item sku=\"s-2\"/></items>"
+        + "</order>";
+
+    private final XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+
+    @Test
+    void pathsAreRelativeToTheRootElement() throws Exception {
+        assertThat(extract("orderId", ORDER)).isEqualTo("42");
+        assertThat(extract("/customer/id", ORDER)).isEqualTo("7");
+        assertThat(extract("note/orderId", ORDER)).isEqualTo("nested");
+    }
+
+    @Test
+    void attributesAreReadFromTheFirstElementOnThePath() throws Exception {
+        assertThat(extract("@status", ORDER)).isEqualTo("new");
+        assertThat(extract("items/item/@sku", ORDER)).isEqualTo("s-1");
+        assertThat(extract("customer/@id", ORDER)).isNull();
+    }
+
+    @Test
+    void missingElementsGiveNull() throws Exception {
+        assertThat(extract("customer/email", ORDER)).isNull();
+        assertThat(extract("id", ORDER)).isNull();
+        assertThat(extract("orderId", "<order/>")).isNull();
+    }
+
+    @Test
+    void readingStopsAtTheValue() throws Exception {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(new StringReader(ORDER));
+
+        assertThat(XmlKeyExtractor.compile("customer/name").extract(reader)).isEqualTo("A");
+        assertThat(reader.getLocalName()).isEqualTo("name");
+        assertThat(reader.isEndElement()).isTrue();
+    }
+
+    @Test
+    void invalidPathsAreRejected() {
+        for (String path : new String[] {null, "", " / ", "a//b", "@", "a/@", "@a/b"}) {
+            assertThatThrownBy(() -> XmlKeyExtractor.compile(path)).as(String.valueOf(path))
+                .isInstanceOf(IllegalArgumentException.class);
+        }
+        assertThat(XmlKeyExtractor.compile("customer/id").getPath()).isEqualTo("customer/id");
+    }
+
+    private String extract(String path, String xml) throws XMLStreamException {
+        return XmlKeyExtractor.compile(path).extract(inputFactory.createXMLStreamReader(new StringReader(xml)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.ads.apiseng.util;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.StringReader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+class XmlLimitsTest {
+
+    private final XmlLimits limits = new XmlLimits(200, 3, 6, 2, 10);
+
+    @Test
+    void woodstoxEnforcesEachLimitWhileParsing() {
+        assertViolation("<a><b><c><d/></c></b></a>", 422, "depth");
+        assertViolation("<a><b/><b/><b/><b/><b/><b/></a>", 422, "count");
+        assertViolation("<a x=\"1\" y=\"2\" z=\"3\"/>", 422, "attribute");
+        assertViolation("<a>" + "t".repeat(50) + "</a>", 422, "text");
+        assertViolation("<a>" + "<!--c-->".repeat(100) + "</a>", 413, "characters");
+    }
+
+    @Test
+    void documentsWithinTheLimitsParse() throws Exception {
+        XMLStreamReader reader = limits.apply(new WstxInputFactory())
+            .createXMLStreamReader(new StringReader("<a x=\"1\"><b>short</b><b/></a>"));
+        while (reader.hasNext()) {
+            reader.next();
+        }
+    }
+
+    @Test
+    void trackerChecksEventsFromParsersWithoutLimits() throws Exception {
+        XmlLimits.Tracker tracker = limits.tracker();
+        XMLStreamReader reader = XMLInputFactory.newFactory()
+            .createXMLStreamReader(new StringReader("<a><b>" + "x".repeat(6) + "<![CDATA[" + "y".repeat(6) + "]]></b></a>"));
+
+        Throwable error = catchThrowable(() -> {
+            while (reader.hasNext()) {
+                tracker.onEvent(reader, reader.next());
+            }
+        });
+
+        // Text is measured across the chunks of one node
+        assertThat(error).isInstanceOf(XmlLimitExceededException.class).hasMessageContaining("text length");
+        assertThat(((XmlLimitExceededException) error).getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    void trackerCountsInputBytes() {
+        XmlLimits.Tracker tracker = limits.tracker();
+        tracker.onInput(150);
+
+        assertThatThrownBy(() -> tracker.onInput(51))
+            .isInstanceOfSatisfying(XmlLimitExceededException.class, e -> assertThat(e.getStatus()).isEqualTo(413));
+    }
+
+    @Test
+    void largeDocumentLimitsOnlyDropTheGrowingOnes() {
+        XmlLimits large = limits.forLargeDocuments();
+
+        assertThat(large.getMaxBytes()).isEqualTo(Long.MAX_VALUE);
+        assertThat(large.getMaxElements()).isEqualTo(Long.MAX_VALUE);
+        assertThat(large.getMaxDepth()).isEqualTo(3);
+        assertThat(large.getMaxAttributes()).isEqualTo(2);
+        assertThat(large.getMaxTextLength()).isEqualTo(10);
+    }
+
+    @Test
+    void otherErrorsAreNotViolations() {
+        assertThat(XmlLimits.findViolation(new XMLStreamException("Unexpected close tag"))).isNull();
+        assertThat(XmlLimits.findViolation(new IllegalStateException(new XmlLimitExceededException(false, "nested"))))
+            .isNotNull();
+        assertThat(XmlLimits.findViolation(null)).isNull();
+    }
+
+    private void assertViolation(String xml, int status, String message) {
+        Throwable error = catchThrowable(() -> {
+            XMLStreamReader reader = limits.apply(new WstxInputFactory()).createXMLStreamReader(new StringReader(xml));
+            while (reader.hasNext()) {
+                reader.next();
+            }
+        });
+
+        XmlLimitExceededException violation = XmlLimits.findViolation(error);
+        assertThat(violation).as(xml).isNotNull();
+        assertThat(violation.getStatus()).as(xml).isEqualTo(status);
+        assertThat(violation.getMessage()).containsIgnoringCase(message);
+    }
+}
@@ -0,0 +1,71 @@
+package com.ads.apiseng.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class XmlProjectionTest {
+
+    private static final String ORDER = "<order id=\"7\" channel=\"web\"><orderId>ORD-1</orderId><notes>skip</notes>"
+        + "<lineItems><lineItem sku=\"A\"><productId>P1</productId><quantity>2</quantity></lineItem>"
+        + "<lineItem sku=\"B\"><productId>P2</productId><quantity>1</quantity></lineItem></lineItems></order>";
+
+    private final XmlMapper xmlMapper = new XmlMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StreamingXmlJsonConverter converter = new StreamingXmlJsonConverter(xmlMapper, objectMapper);
+
+    @Test
+    void keepsSelectedPathsAndAttributes() throws Exception {
+        XmlProjection projection = XmlProjection.parse("orderId, lineItems/lineItem/productId, @id");
+
+        assertThat(streamed(projection))
+            .isEqualTo("{\"id\":\"7\",\"orderId\":\"ORD-1\",\"lineItems\":{\"lineItem\":[{\"productId\":\"P1\"},{\"productId\":\"P2\"}]}}");
+    }
+
+    @Test
+    void namedAndWildcardStepsAreMerged() throws Exception {
+        XmlProjection projection = XmlProjection.compile(List.of("lineItems/lineItem/productId", "*/lineItem/@sku", "*/*/quantity"));
+
+        // Elements the wildcard passes through are kept, if empty
+        assertThat(streamed(projection)).isEqualTo("{\"orderId\":{},\"notes\":{},\"lineItems\":{\"lineItem\":["
+            + "{\"sku\":\"A\",\"productId\":\"P1\",\"quantity\":\"2\"},{\"sku\":\"B\",\"productId\":\"P2\",\"quantity\":\"1\"}]}}");
+    }
+
+    @Test
+    void treeFallbackMatchesTheStreamingConverter() throws Exception {
+        // Not for wildcards at the root: the tree has the root's attributes as fields too
+        for (String spec : List.of("orderId,@id", "lineItems/lineItem/productId,lineItems/*/quantity", "lineItems", "lineItems/*/@sku")) {
+            XmlProjection projection = XmlProjection.parse(spec);
+            String tree = objectMapper.writeValueAsString(projection.apply(xmlMapper.readTree(ORDER)));
+
+            assertThat(tree).as(spec).isEqualTo(streamed(projection));
+        }
+    }
+
+    @Test
+    void blankSpecsAreNoProjection() {
+        assertThat(XmlProjection.parse(" ")).isNull();
+        assertThat(XmlProjection.compile(List.of())).isNull();
+    }
+
+    @Test
+    void attributeMustBeTheLastStep() {
+        assertThatThrownBy(() -> XmlProjection.parse("@id/name")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> XmlProjection.parse("a//b")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String streamed(XmlProjection projection) throws Exception {
+        StringWriter out = new StringWriter();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            converter.convert(ORDER, generator, projection);
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.ads.apiseng.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XmlRecordScannerTest {
+
+    @Test
+    void slicesRecordsBelowTheRoot() {
+        String xml = "<?xml version=\"1.0\"?><!-- batch --><orders><order id=\"a>b\"><x/></order>"
+            + "<order/><![CDATA[<order>]]><p:order xmlns:p=\"urn:p\">1</p:order></orders>";
+
+        assertThat(records(xml, "order"))
+            .containsExactly("<order id=\"a>b\"><x/></order>", "<order/>", "<p:order xmlns:p=\"urn:p\">1</p:order>");
+    }
+
+    @Test
+    void nestedRecordElementsStayInsideTheirRecord() {
+        assertThat(records("<orders><order><order>inner</order></order></orders>", "order"))
+            .containsExactly("<order><order>inner</order></order>");
+    }
+
+    @Test
+    void theRootItselfIsNeverARecord() {
+        assertThat(records("<order><id>1</id></order>", "order")).isEmpty();
+    }
+
+    @Test
+    void documentsWithoutARootHaveNoRecords() {
+        assertThat(XmlRecordScanner.scan("", "order")).isEmpty();
+        assertThat(XmlRecordScanner.scan("<?xml version=\"1.0\"?><!-- nothing -->", "order")).isEmpty();
+    }
+
+    @Test
+    void givesUpWhereSlicesWouldNotStandAlone() {
+        assertThat(XmlRecordScanner.scan("<!DOCTYPE orders><orders><order/></orders>", "order")).isNull();
+        assertThat(XmlRecordScanner.scan("<orders xmlns=\"urn:o\"><order/></orders>", "order")).isNull();
+        assertThat(XmlRecordScanner.scan("<orders><order></orders>", "order")).isNull();
+        assertThat(XmlRecordScanner.scan("<orders><order", "order")).isNull();
+    }
+
+    private static List<String> records(String xml, String recordElement) {
+        int[] bounds = XmlRecordScanner.scan(xml, recordElement);
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < bounds.length; i += 2) {
+            records.add(xml.substring(bounds[i], bounds[i + 1]));
+        }
+        return records;
+    }
+}
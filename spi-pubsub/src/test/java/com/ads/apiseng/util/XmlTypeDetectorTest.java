@@ -0,0 +1,134 @@
+package com.ads.apiseng.util;
+
+import com.ads.apiseng.config.SpiAppProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(classes = {XmlTypeDetector.class, XmlTypeDetectorTest.Config.class})
+class XmlTypeDetectorTest {
+
+    @TestConfiguration
+    @EnableConfigurationProperties(SpiAppProperties.class)
+    static class Config {
+    }
+
+    @Autowired
+    private XmlTypeDetector xmlTypeDetector;
+
+    @Autowired
+    private SpiAppProperties spiAppProperties;
+
+    @AfterEach
+    void restore() {
+        spiAppProperties.getRouting().getXmlTypes().values().forEach(config -> config.setEnabled(true));
+        spiAppProperties.getRouting().getDetection().setMode("body");
+        xmlTypeDetector.compile();
+    }
+
+    @Test
+    void rootElementDecidesOverKeywordsInTheBody() {
+        spiAppProperties.getRouting().getDetection().setMode("root");
+
+        assertThat(xmlTypeDetector.detect("<order><customerId>7</customerId><item/></order>")).isEqualTo("ORDER");
+        assertThat(xmlTypeDetector.detect("<?xml version=\"1.0\"?><!-- x --><products><product/></products>")).isEqualTo("PRODUCT");
+    }
+
+    @Test
+    void namespacesAndPathRulesClassifyUnknownRoots() {
+        spiAppProperties.getRouting().getDetection().setMode("xpath");
+
+        assertThat(xmlTypeDetector.detect("<c:record xmlns:c=\"urn:spi:customer\"><c:id>1</c:id></c:record>")).isEqualTo("CUSTOMER");
+        assertThat(xmlTypeDetector.detect("<doc type=\"invoice\"><n>1</n></doc>")).isEqualTo("INVOICE");
+    }
+
+    @Test
+    void bodyIsTheDefaultModeAndTakesTheHighestPriorityKeyword() {
+        assertThat(spiAppProperties.getRouting().getDetection().getMode()).isEqualTo("body");
+
+        assertThat(xmlTypeDetector.detect("<order><customerId>7</customerId></order>")).isEqualTo("CUSTOMER");
+        assertThat(xmlTypeDetector.detect("<thing><item/></thing>")).isEqualTo("PRODUCT");
+        assertThat(xmlTypeDetector.detect("<thing/>")).isEqualTo("GENERIC");
+        assertThat(xmlTypeDetector.detect("  ")).isEqualTo("INVALID");
+    }
+
+    @Test
+    void ordinalsIndexTheConfiguredTypeNames() {
+        int ordinal = xmlTypeDetector.detectOrdinal("<order><id>1</id></order>");
+
+        assertThat(xmlTypeDetector.typeNames().get(ordinal)).isEqualTo("ORDER");
+        assertThat(xmlTypeDetector.typeName(ordinal)).isEqualTo("ORDER");
+        assertThat(xmlTypeDetector.detectOrdinal("<thing/>")).isEqualTo(XmlTypeDetector.GENERIC);
+        assertThat(xmlTypeDetector.detectOrdinal("")).isEqualTo(XmlTypeDetector.INVALID);
+        assertThat(xmlTypeDetector.typeName(XmlTypeDetector.INVALID)).isEqualTo("INVALID");
+    }
+
+    @Test
+    void detectAllListsMatchingTypesInPriorityOrder() {
+        assertThat(xmlTypeDetector.detectAll("<x><invoice/><customer/><order/></x>")).isEqualTo(List.of("CUSTOMER", "ORDER", "INVOICE"));
+    }
+
+    @Test
+    void disabledTypesAreNotDetectedOnceRecompiled() {
+        spiAppProperties.getRouting().getXmlTypes().get("customer").setEnabled(false);
+        xmlTypeDetector.compile();
+
+        assertThat(xmlTypeDetector.detect("<order><customerId>7</customerId></order>")).isEqualTo("ORDER");
+    }
+
+    @Test
+    void invalidRulesThrowAndKeepTheCurrentOnes() {
+        var paths = spiAppProperties.getRouting().getXmlTypes().get("invoice").getDetection().getPaths();
+        spiAppProperties.getRouting().getXmlTypes().get("invoice").getDetection().setPaths(List.of("/doc[@type="));
+        try {
+            assertThatThrownBy(() -> xmlTypeDetector.compile()).isInstanceOf(IllegalArgumentException.class);
+            assertThat(xmlTypeDetector.detectPath("<doc type=\"invoice\"/>")).isEqualTo("INVOICE");
+        } finally {
+            spiAppProperties.getRouting().getXmlTypes().get("invoice").getDetection().setPaths(paths);
+        }
+    }
+
+    @Test
+    void rootElementIsReadPastTheDocumentHead() {
+        String xml = "\uFEFF<?xml version=\"1.0\"?>\n<!-- <fake/> -->\n<?pi <fake/>?>"
+            + "<!DOCTYPE c:order [<!ENTITY x \"]>\"> <!-- ] --> <!ELEMENT c:order ANY>]>\n"
+            + "<c:order xmlns=\"urn:default\" xmlns:c='urn:spi:order' id=\"1\"><c:id/></c:order>";
+
+        XmlTypeDetector.RootElement root = XmlTypeDetector.readRootElement(xml, xml.length());
+
+        assertThat(root.getPrefix()).isEqualTo("c");
+        assertThat(root.getLocalName()).isEqualTo("order");
+        assertThat(root.getNamespaceUri()).isEqualTo("urn:spi:order");
+        assertThat(root.getQualifiedName()).isEqualTo("c:order");
+        assertThat(XmlTypeDetector.extractRootElement(xml)).isEqualTo("c:order");
+    }
+
+    @Test
+    void rootElementNeedsAWholeTagWithinTheHead() {
+        assertThat(XmlTypeDetector.readRootElement("<customers xmlns=\"urn:spi:customer\"/>", 100).getNamespaceUri())
+            .isEqualTo("urn:spi:customer");
+        assertThat(XmlTypeDetector.readRootElement("<customers xmlns:c=\"urn:spi:customer\"/>", 100).getNamespaceUri()).isNull();
+        assertThat(XmlTypeDetector.readRootElement("<!-- long comment --><order/>", 10)).isNull();
+        assertThat(XmlTypeDetector.readRootElement("<orders>", 5)).isNull();
+        assertThat(XmlTypeDetector.readRootElement("text<order/>", 100)).isNull();
+        assertThat(XmlTypeDetector.readRootElement("", 100)).isNull();
+        assertThat(XmlTypeDetector.extractRootElement("not xml")).isEqualTo("unknown");
+        assertThat(XmlTypeDetector.extractRootElement("<Order/>")).isEqualTo("order");
+    }
+
+    @Test
+    void detectRootPrefersNamespaceThenNameThenKeywords() {
+        assertThat(xmlTypeDetector.detectRoot("record", "urn:spi:customer")).isEqualTo("CUSTOMER");
+        assertThat(xmlTypeDetector.detectRoot("invoices", null)).isEqualTo("INVOICE");
+        assertThat(xmlTypeDetector.detectRoot("purchaseOrder", "urn:unknown")).isEqualTo("ORDER");
+        assertThat(xmlTypeDetector.detectRoot("thing", null)).isEqualTo("GENERIC");
+    }
+}
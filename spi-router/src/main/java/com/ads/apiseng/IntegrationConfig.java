@@ -1,8 +1,9 @@
 package com.ads.apiseng;
 
 import com.ads.apiseng.service.XmlTransformationService;
-import com.ads.apiseng.util.XmlTypeDetector;
+import com.ads.apiseng.util.XmlMessageContext;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -121,8 +122,9 @@ public class IntegrationConfig {
     // =================== CONTENT-BASED ROUTER ===================
     
     @Router(inputChannel = "contentRouterInputChannel")
-    public String routeXmlByContent(String xmlPayload) {
-        String xmlType = XmlTypeDetector.detectType(xmlPayload);
+    public String routeXmlByContent(Message<String> message) {
+        // Detected once by whoever built the message; only messages without a context are scanned here
+        String xmlType = XmlMessageContext.from(message).getXmlType();
         System.out.println("🔀 CONTENT-BASED ROUTER: Detected Type = " + xmlType);
         
         switch (xmlType) {
@@ -144,43 +146,47 @@ public class IntegrationConfig {
     // =================== CONTENT-BASED TRANSFORMERS ===================
     
     @Transformer(inputChannel = "customerProcessingChannel", outputChannel = "customerOutputChannel")
-    public String transformCustomerXml(String xmlPayload) {
+    public String transformCustomerXml(Message<String> message) {
+        XmlMessageContext context = XmlMessageContext.from(message);
         System.out.println("🔄 CUSTOMER TRANSFORMER: Processing specialized customer XML");
         if (transformationService != null) {
-            return transformationService.transformCustomerXmlToJson(xmlPayload);
+            return transformationService.transformToJson(context, "customer");
         } else {
             // Fallback to basic transformation
-            return transformWithMappers(xmlPayload, "customer");
+            return transformWithMappers(context, "customer");
         }
     }
 
     @Transformer(inputChannel = "orderProcessingChannel", outputChannel = "orderOutputChannel")
-    public String transformOrderXml(String xmlPayload) {
+    public String transformOrderXml(Message<String> message) {
+        XmlMessageContext context = XmlMessageContext.from(message);
         System.out.println("🔄 ORDER TRANSFORMER: Processing specialized order XML");
         if (transformationService != null) {
-            return transformationService.transformOrderXmlToJson(xmlPayload);
+            return transformationService.transformToJson(context, "order");
         } else {
-            return transformWithMappers(xmlPayload, "order");
+            return transformWithMappers(context, "order");
         }
     }
 
     @Transformer(inputChannel = "productProcessingChannel", outputChannel = "productOutputChannel")
-    public String transformProductXml(String xmlPayload) {
+    public String transformProductXml(Message<String> message) {
+        XmlMessageContext context = XmlMessageContext.from(message);
         System.out.println("🔄 PRODUCT TRANSFORMER: Processing specialized product XML");
         if (transformationService != null) {
-            return transformationService.transformProductXmlToJson(xmlPayload);
+            return transformationService.transformToJson(context, "product");
         } else {
-            return transformWithMappers(xmlPayload, "product");
+            return transformWithMappers(context, "product");
         }
     }
 
     @Transformer(inputChannel = "genericProcessingChannel", outputChannel = "genericOutputChannel")
-    public String transformGenericXml(String xmlPayload) {
+    public String transformGenericXml(Message<String> message) {
+        XmlMessageContext context = XmlMessageContext.from(message);
         System.out.println("🔄 GENERIC TRANSFORMER: Processing generic XML");
         if (transformationService != null) {
-            return transformationService.transformGenericXmlToJson(xmlPayload);
+            return transformationService.transformToJson(context, "generic");
         } else {
-            return transformWithMappers(xmlPayload, "generic");
+            return transformWithMappers(context, "generic");
         }
     }
 
@@ -216,21 +222,18 @@ public class IntegrationConfig {
 
     // =================== HELPER METHOD ===================
     
-    private String transformWithMappers(String xmlPayload, String type) {
+    private String transformWithMappers(XmlMessageContext context, String type) {
+        // Use your existing mappers for fallback transformation; the envelope is built as a tree so every value is escaped
+        ObjectNode envelope = objectMapper().createObjectNode()
+            .put("type", type)
+            .put("timestamp", String.valueOf(System.currentTimeMillis()))
+            .put("processor", "FallbackTransformer");
         try {
-            // Use your existing mappers for fallback transformation
-            var jsonNode = xmlMapper().readTree(xmlPayload);
-            String jsonData = objectMapper().writeValueAsString(jsonNode);
-            
-            return String.format(
-                "{ \"type\": \"%s\", \"timestamp\": \"%d\", \"processor\": \"FallbackTransformer\", \"status\": \"success\", \"data\": %s }", 
-                type, System.currentTimeMillis(), jsonData
-            );
+            var jsonNode = xmlMapper().readTree(context.getXml());
+            envelope.put("status", "success").set("data", jsonNode);
         } catch (Exception e) {
-            return String.format(
-                "{ \"type\": \"%s\", \"timestamp\": \"%d\", \"processor\": \"FallbackTransformer\", \"status\": \"error\", \"error\": \"%s\" }", 
-                type, System.currentTimeMillis(), e.getMessage()
-            );
+            envelope.put("status", "error").put("error", String.valueOf(e.getMessage()));
         }
+        return envelope.toString();
     }
 }
\ No newline at end of file
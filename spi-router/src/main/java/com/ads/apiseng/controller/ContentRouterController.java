@@ -6,7 +6,7 @@ import org.springframework.integration.core.MessagingTemplate;
 import org.springframework.integration.support.MessageBuilder;
 import org.springframework.messaging.Message;
 import org.springframework.web.bind.annotation.*;
-import com.ads.apiseng.util.XmlTypeDetector;
+import com.ads.apiseng.util.XmlMessageContext;
 
 @RestController
 @RequestMapping("/api/content-router")
@@ -19,19 +19,20 @@ public class ContentRouterController {
     @PostMapping("/route-xml")
     public ResponseEntity<String> routeXml(@RequestBody String xmlContent) {
         try {
-            // Validate XML
-            if (!XmlTypeDetector.isValidXml(xmlContent)) {
+            // Validate and detect once; the router and transformers reuse this context
+            XmlMessageContext context = XmlMessageContext.of(xmlContent);
+            if (!context.isValidXml()) {
                 return ResponseEntity.badRequest()
                     .body("Invalid XML format provided");
             }
 
-            // Detect XML type for logging
-            String xmlType = XmlTypeDetector.detectType(xmlContent);
+            String xmlType = context.getXmlType();
             System.out.println("Routing XML of type: " + xmlType);
 
             Message<String> message = MessageBuilder
                 .withPayload(xmlContent)
                 .setHeader("xml-type", xmlType)
+                .setHeader(XmlMessageContext.HEADER, context)
                 .setHeader("processing-time", System.currentTimeMillis())
                 .build();
                 
@@ -66,16 +67,18 @@ public class ContentRouterController {
 
     private ResponseEntity<String> routeSpecificXml(String xmlContent, String expectedType) {
         try {
-            if (!XmlTypeDetector.isValidXml(xmlContent)) {
+            XmlMessageContext context = XmlMessageContext.of(xmlContent);
+            if (!context.isValidXml()) {
                 return ResponseEntity.badRequest()
                     .body(String.format("Invalid XML format for %s", expectedType));
             }
 
-            String detectedType = XmlTypeDetector.detectType(xmlContent);
+            String detectedType = context.getXmlType();
             
             Message<String> message = MessageBuilder
                 .withPayload(xmlContent)
                 .setHeader("xml-type", detectedType)
+                .setHeader(XmlMessageContext.HEADER, context)
                 .setHeader("expected-type", expectedType)
                 .setHeader("processing-time", System.currentTimeMillis())
                 .build();
@@ -115,13 +118,11 @@ public class ContentRouterController {
     @PostMapping("/test-detection")
     public ResponseEntity<String> testXmlTypeDetection(@RequestBody String xmlContent) {
         try {
-            boolean isValid = XmlTypeDetector.isValidXml(xmlContent);
-            String detectedType = XmlTypeDetector.detectType(xmlContent);
-            String rootElement = XmlTypeDetector.extractRootElement(xmlContent);
+            XmlMessageContext context = XmlMessageContext.of(xmlContent);
             
             return ResponseEntity.ok(String.format(
-                "{ \"isValidXml\": %b, \"detectedType\": \"%s\", \"rootElement\": \"%s\", \"timestamp\": \"%d\" }", 
-                isValid, detectedType, rootElement, System.currentTimeMillis()));
+                "{ \"isValidXml\": %b, \"detectedType\": \"%s\", \"rootElement\": \"%s\", \"byteLength\": %d, \"timestamp\": \"%d\" }", 
+                context.isValidXml(), context.getXmlType(), context.getRootElement(), context.getByteLength(), System.currentTimeMillis()));
                 
         } catch (Exception e) {
             return ResponseEntity.badRequest()
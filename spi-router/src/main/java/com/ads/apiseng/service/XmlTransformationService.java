@@ -1,7 +1,9 @@
 package com.ads.apiseng.service;
 
+import com.ads.apiseng.util.XmlMessageContext;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import org.springframework.stereotype.Service;
 
@@ -11,43 +13,24 @@ public class XmlTransformationService {
     private final XmlMapper xmlMapper = new XmlMapper();
     private final ObjectMapper jsonMapper = new ObjectMapper();
     
-    public String transformCustomerXmlToJson(String xml) {
+    /**
+     * The {@code {type, timestamp, data}} envelope for the message context's payload, or
+     * {@code {type, error}} when it doesn't parse. Written by Jackson, so the data and the error
+     * message are escaped.
+     */
+    public String transformToJson(XmlMessageContext context, String type) {
         try {
-            JsonNode jsonNode = xmlMapper.readTree(xml);
-            String json = jsonMapper.writeValueAsString(jsonNode);
-            return "{ \"type\": \"customer\", \"timestamp\": \"" + System.currentTimeMillis() + "\", \"data\": " + json + " }";
+            JsonNode data = xmlMapper.readTree(context.getXml());
+            ObjectNode envelope = jsonMapper.createObjectNode()
+                .put("type", type)
+                .put("timestamp", String.valueOf(System.currentTimeMillis()));
+            envelope.set("data", data);
+            return envelope.toString();
         } catch (Exception e) {
-            return "{ \"type\": \"customer\", \"error\": \"" + e.getMessage() + "\" }";
+            return jsonMapper.createObjectNode()
+                .put("type", type)
+                .put("error", String.valueOf(e.getMessage()))
+                .toString();
         }
     }
-    
-    public String transformOrderXmlToJson(String xml) {
-        try {
-            JsonNode jsonNode = xmlMapper.readTree(xml);
-            String json = jsonMapper.writeValueAsString(jsonNode);
-            return "{ \"type\": \"order\", \"timestamp\": \"" + System.currentTimeMillis() + "\", \"data\": " + json + " }";
-        } catch (Exception e) {
-            return "{ \"type\": \"order\", \"error\": \"" + e.getMessage() + "\" }";
-        }
-    }
-    
-    public String transformProductXmlToJson(String xml) {
-        try {
-            JsonNode jsonNode = xmlMapper.readTree(xml);
-            String json = jsonMapper.writeValueAsString(jsonNode);
-            return "{ \"type\": \"product\", \"timestamp\": \"" + System.currentTimeMillis() + "\", \"data\": " + json + " }";
-        } catch (Exception e) {
-            return "{ \"type\": \"product\", \"error\": \"" + e.getMessage() + "\" }";
-        }
-    }
-    
-    public String transformGenericXmlToJson(String xml) {
-        try {
-            JsonNode jsonNode = xmlMapper.readTree(xml);
-            String json = jsonMapper.writeValueAsString(jsonNode);
-            return "{ \"type\": \"generic\", \"timestamp\": \"" + System.currentTimeMillis() + "\", \"data\": " + json + " }";
-        } catch (Exception e) {
-            return "{ \"type\": \"generic\", \"error\": \"" + e.getMessage() + "\" }";
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package com.ads.apiseng.util;
+
+import org.springframework.messaging.Message;
+
+/**
+ * What is known about an XML message after it has been looked at once: its detected type and
+ * whether it looks like XML. It travels with the message in the {@link #HEADER} header, so the
+ * router and transformers reuse the controller's detection instead of rescanning the payload;
+ * the transformer that handles the message is the only stage that parses it.
+ *
+ * Immutable, as headers are shared by every copy of the message. A context is tied to its payload
+ * by length and hash, so one copied onto a message with a different payload is not reused.
+ */
+public final class XmlMessageContext {
+
+    public static final String HEADER = "xml-context";
+
+    private final String xml;
+    private final String xmlType;
+    private final boolean validXml;
+    private final int payloadLength;
+    private final int payloadHash;
+
+    private XmlMessageContext(String xml) {
+        this.xml = xml;
+        this.xmlType = XmlTypeDetector.detectType(xml);
+        this.validXml = XmlTypeDetector.isValidXml(xml);
+        this.payloadLength = xml != null ? xml.length() : -1;
+        this.payloadHash = xml != null ? xml.hashCode() : 0;
+    }
+
+    public static XmlMessageContext of(String xml) {
+        return new XmlMessageContext(xml);
+    }
+
+    /**
+     * The context carried by {@code message}, or a new one for its payload when it was sent
+     * without one (or with one for a different payload).
+     */
+    public static XmlMessageContext from(Message<?> message) {
+        String payload = message.getPayload() instanceof String ? (String) message.getPayload() : null;
+        Object header = message.getHeaders().get(HEADER);
+        if (header instanceof XmlMessageContext && ((XmlMessageContext) header).describes(payload)) {
+            return (XmlMessageContext) header;
+        }
+        return of(payload);
+    }
+
+    public boolean describes(String payload) {
+        return payload != null ? payload.length() == payloadLength && payload.hashCode() == payloadHash : payloadLength < 0;
+    }
+
+    public String getXml() { return xml; }
+    public String getXmlType() { return xmlType; }
+    public boolean isValidXml() { return validXml; }
+
+    // Diagnostics only, so computed when asked for rather than for every message
+
+    public String getRootElement() {
+        return XmlTypeDetector.extractRootElement(xml);
+    }
+
+    public int getByteLength() {
+        return xml != null ? utf8Length(xml) : 0;
+    }
+
+    private static int utf8Length(String text) {
+        int length = text.length();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x800) {
+                // Surrogate pairs count 2 + 2 for their 4 bytes
+                length += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                length++;
+            }
+        }
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return "XmlMessageContext{type=" + xmlType + ", chars=" + payloadLength + "}";
+    }
+}
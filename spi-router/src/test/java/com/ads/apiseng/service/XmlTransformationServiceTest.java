@@ -0,0 +1,33 @@
+package com.ads.apiseng.service;
+
+import com.ads.apiseng.util.XmlMessageContext;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XmlTransformationServiceTest {
+
+    private final XmlTransformationService service = new XmlTransformationService();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void wrapsTheParsedPayloadInTheEnvelope() throws Exception {
+        JsonNode envelope = objectMapper.readTree(service.transformToJson(XmlMessageContext.of("<customer><name>A \"B\"</name></customer>"), "customer"));
+
+        assertThat(envelope.get("type").asText()).isEqualTo("customer");
+        assertThat(envelope.get("timestamp").asText()).isNotEmpty();
+        assertThat(envelope.at("/data/name").asText()).isEqualTo("A \"B\"");
+    }
+
+    @Test
+    void escapesTheErrorMessage() throws Exception {
+        // The parser's message quotes the offending markup
+        JsonNode envelope = objectMapper.readTree(service.transformToJson(XmlMessageContext.of("<a><b></a>"), "generic"));
+
+        assertThat(envelope.get("type").asText()).isEqualTo("generic");
+        assertThat(envelope.get("error").asText()).isNotEmpty();
+        assertThat(envelope.has("data")).isFalse();
+    }
+}
@@ -0,0 +1,62 @@
+package com.ads.apiseng.util;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class XmlMessageContextTest {
+
+    private static final String CUSTOMER = "<customer><name>Zoë</name></customer>";
+
+    @Test
+    void describesThePayload() {
+        XmlMessageContext context = XmlMessageContext.of(CUSTOMER);
+
+        assertThat(context.getXmlType()).isEqualTo(XmlTypeDetector.detectType(CUSTOMER));
+        assertThat(context.isValidXml()).isTrue();
+        assertThat(context.getRootElement()).isEqualTo(XmlTypeDetector.extractRootElement(CUSTOMER));
+        // ë takes two bytes in UTF-8
+        assertThat(context.getByteLength()).isEqualTo(CUSTOMER.length() + 1);
+    }
+
+    @Test
+    void countsSurrogatePairsAsFourBytes() {
+        assertThat(XmlMessageContext.of("<a>😀</a>").getByteLength()).isEqualTo(11);
+    }
+
+    @Test
+    void handlesMissingPayloads() {
+        XmlMessageContext context = XmlMessageContext.of(null);
+
+        assertThat(context.isValidXml()).isFalse();
+        assertThat(context.getByteLength()).isZero();
+    }
+
+    @Test
+    void reusesTheContextCarriedForTheSamePayload() {
+        XmlMessageContext context = XmlMessageContext.of(CUSTOMER);
+        Message<String> message = MessageBuilder.withPayload(CUSTOMER).setHeader(XmlMessageContext.HEADER, context).build();
+
+        assertThat(XmlMessageContext.from(message)).isSameAs(context);
+    }
+
+    @Test
+    void replacesAContextCarriedForAnotherPayload() {
+        XmlMessageContext stale = XmlMessageContext.of("<order/>");
+        Message<String> message = MessageBuilder.withPayload(CUSTOMER).setHeader(XmlMessageContext.HEADER, stale).build();
+
+        XmlMessageContext context = XmlMessageContext.from(message);
+        assertThat(context).isNotSameAs(stale);
+        assertThat(context.getXml()).isSameAs(CUSTOMER);
+    }
+
+    @Test
+    void reusesTheContextForAnEqualPayloadInstance() {
+        XmlMessageContext context = XmlMessageContext.of(CUSTOMER);
+        Message<String> message = MessageBuilder.withPayload(new String(CUSTOMER)).setHeader(XmlMessageContext.HEADER, context).build();
+
+        assertThat(XmlMessageContext.from(message)).isSameAs(context);
+    }
+}